@@ -0,0 +1,57 @@
+package com.romen.inventory.config;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+
+import java.time.Duration;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Health indicator whose result is reused for a short time-to-live, so load
+ * balancer probes arriving every second or two do not each touch the
+ * database or the disk. Only one caller recomputes an expired result;
+ * concurrent probes meanwhile get the previous one instead of waiting on a
+ * slow check. Only the very first probe, with nothing cached yet, waits.
+ */
+public abstract class CachedHealthIndicator implements HealthIndicator {
+
+    private final long ttlNanos;
+    private final ReentrantLock refreshLock = new ReentrantLock();
+    private volatile Result cached;
+
+    protected CachedHealthIndicator(Duration ttl) {
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    @Override
+    public Health health() {
+        Result current = cached;
+        if (current != null && System.nanoTime() - current.checkedAt() < ttlNanos) {
+            return current.health();
+        }
+        if (current == null) {
+            refreshLock.lock();
+        } else if (!refreshLock.tryLock()) {
+            return current.health();
+        }
+        try {
+            if (cached == current) {
+                Health fresh;
+                try {
+                    fresh = check();
+                } catch (Exception e) {
+                    fresh = Health.down(e).build();
+                }
+                cached = new Result(fresh, System.nanoTime());
+            }
+            return cached.health();
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    protected abstract Health check() throws Exception;
+
+    private record Result(Health health, long checkedAt) {
+    }
+}
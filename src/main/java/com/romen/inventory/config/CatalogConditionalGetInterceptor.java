@@ -0,0 +1,113 @@
+package com.romen.inventory.config;
+
+import com.romen.inventory.controller.CategoryController;
+import com.romen.inventory.service.CategoryCatalog;
+import com.romen.inventory.service.CategorySnapshot;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Answers conditional GETs on {@link CatalogRead} handlers of
+ * {@link CategoryController} from the catalog generation alone. Every
+ * category write bumps the snapshot version, so together with the request
+ * target it is a strong validator for those reads (see {@link CatalogETags}).
+ * A matching If-None-Match, or a fresh enough If-Modified-Since, gets a 304
+ * before the handler runs. Otherwise the validators are left on the request
+ * and only written once the handler succeeds, by {@link CatalogResponseCache}
+ * or {@link CatalogValidatorsAdvice}, so a 404 never carries them and a
+ * matching tag always stands for a 2xx.
+ *
+ * Runs after the security filter chain, so only authenticated callers are
+ * ever told that their copy is current.
+ */
+@Component
+public class CatalogConditionalGetInterceptor implements HandlerInterceptor {
+
+    static final String ETAG_ATTRIBUTE = CatalogConditionalGetInterceptor.class.getName() + ".etag";
+    static final String LAST_MODIFIED_ATTRIBUTE = CatalogConditionalGetInterceptor.class.getName() + ".lastModified";
+
+    private final CategoryCatalog categoryCatalog;
+    private final CatalogETags etags;
+    private final Counter notModified;
+    private final Counter full;
+
+    public CatalogConditionalGetInterceptor(CategoryCatalog categoryCatalog, CatalogETags etags,
+                                            MeterRegistry meterRegistry) {
+        this.categoryCatalog = categoryCatalog;
+        this.etags = etags;
+        this.notModified = Counter.builder("catalog.conditional.requests")
+                .description("Category GETs by outcome of the conditional check")
+                .tag("result", "not_modified")
+                .register(meterRegistry);
+        this.full = Counter.builder("catalog.conditional.requests")
+                .description("Category GETs by outcome of the conditional check")
+                .tag("result", "full")
+                .register(meterRegistry);
+        Gauge.builder("catalog.conditional.hit.ratio", this, CatalogConditionalGetInterceptor::hitRatio)
+                .description("Share of category GETs answered with 304")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!isCatalogRead(request, handler)) {
+            return true;
+        }
+
+        // Taken before the handler reads, so the tag is never newer than the body
+        CategorySnapshot snapshot = categoryCatalog.snapshot();
+        String etag = etags.forRequest(snapshot, request);
+        long lastModified = CatalogETags.lastModified(snapshot);
+
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null) {
+            // If-None-Match takes precedence over If-Modified-Since
+            String matched = etags.matchIfNoneMatch(request, etag);
+            if (matched != null) {
+                etags.writeValidators(response, matched, lastModified);
+                return notModified(response);
+            }
+        } else if (isUnmodifiedSince(request, lastModified)) {
+            etags.writeValidators(response, etag, lastModified);
+            return notModified(response);
+        }
+        full.increment();
+        request.setAttribute(ETAG_ATTRIBUTE, etag);
+        request.setAttribute(LAST_MODIFIED_ATTRIBUTE, lastModified);
+        return true;
+    }
+
+    private boolean notModified(HttpServletResponse response) {
+        notModified.increment();
+        response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+        return false;
+    }
+
+    private boolean isCatalogRead(HttpServletRequest request, Object handler) {
+        String method = request.getMethod();
+        return ("GET".equals(method) || "HEAD".equals(method))
+                && handler instanceof HandlerMethod handlerMethod
+                && handlerMethod.hasMethodAnnotation(CatalogRead.class);
+    }
+
+    private boolean isUnmodifiedSince(HttpServletRequest request, long lastModified) {
+        long ifModifiedSince;
+        try {
+            ifModifiedSince = request.getDateHeader(HttpHeaders.IF_MODIFIED_SINCE);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        return ifModifiedSince != -1 && lastModified <= ifModifiedSince;
+    }
+
+    private double hitRatio() {
+        double total = notModified.count() + full.count();
+        return total == 0 ? 0 : notModified.count() / total;
+    }
+}
@@ -0,0 +1,70 @@
+package com.romen.inventory.config;
+
+import com.romen.inventory.service.CategorySnapshot;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+import java.util.Enumeration;
+
+/**
+ * Validators for category responses. The ETag is the snapshot version
+ * prefixed with a per-process epoch, since versions restart at zero, and
+ * suffixed with a hash of the request target, so paged and filtered reads
+ * of the same generation get distinct tags; the gzip-encoded
+ * representation gets its own strong tag.
+ */
+@Component
+public class CatalogETags {
+
+    private static final String GZIP_SUFFIX = "-gzip";
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+    public String forRequest(CategorySnapshot snapshot, HttpServletRequest request) {
+        String target = request.getQueryString() == null
+                ? request.getRequestURI()
+                : request.getRequestURI() + "?" + request.getQueryString();
+        return "\"" + epoch + "-" + snapshot.getVersion() + "-" + Integer.toHexString(target.hashCode()) + "\"";
+    }
+
+    public static long lastModified(CategorySnapshot snapshot) {
+        return snapshot.getLastModified().toEpochMilli() / 1000 * 1000;
+    }
+
+    public void writeValidators(HttpServletResponse response, String etag, long lastModified) {
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+    }
+
+    public String gzipVariant(String etag) {
+        return etag.substring(0, etag.length() - 1) + GZIP_SUFFIX + "\"";
+    }
+
+    /**
+     * The representation tag from If-None-Match that matches {@code etag},
+     * using weak comparison; {@code null} if none does or the header is absent.
+     */
+    public String matchIfNoneMatch(HttpServletRequest request, String etag) {
+        String gzipEtag = gzipVariant(etag);
+        Enumeration<String> headers = request.getHeaders(HttpHeaders.IF_NONE_MATCH);
+        while (headers.hasMoreElements()) {
+            for (String candidate : headers.nextElement().split(",")) {
+                String tag = candidate.trim();
+                if (tag.startsWith("W/")) {
+                    tag = tag.substring(2);
+                }
+                if ("*".equals(tag) || etag.equals(tag)) {
+                    return etag;
+                }
+                if (gzipEtag.equals(tag)) {
+                    return gzipEtag;
+                }
+            }
+        }
+        return null;
+    }
+}
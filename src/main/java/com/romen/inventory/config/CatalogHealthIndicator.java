@@ -0,0 +1,26 @@
+package com.romen.inventory.config;
+
+import com.romen.inventory.service.CategoryCatalog;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+// Out of service until the category snapshot has been loaded, since reads are served from it
+@Component("catalog")
+@RequiredArgsConstructor
+public class CatalogHealthIndicator implements HealthIndicator {
+
+    private final CategoryCatalog categoryCatalog;
+
+    @Override
+    public Health health() {
+        if (!categoryCatalog.isLoaded()) {
+            return Health.outOfService().withDetail("catalog", "warming up").build();
+        }
+        return Health.up()
+                .withDetail("version", categoryCatalog.snapshot().getVersion())
+                .withDetail("categories", categoryCatalog.snapshot().size())
+                .build();
+    }
+}
@@ -0,0 +1,19 @@
+package com.romen.inventory.config;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a category GET whose successful response is determined by the
+ * catalog generation and the request target alone, so it can carry the
+ * validators from {@link CatalogETags} (see
+ * {@link CatalogConditionalGetInterceptor}).
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface CatalogRead {
+}
@@ -0,0 +1,171 @@
+package com.romen.inventory.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.romen.inventory.service.CategoryCatalog;
+import com.romen.inventory.service.CategorySnapshot;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serialized category responses for the current catalog version, held as
+ * JSON bytes plus a gzip copy and written straight to the servlet response.
+ * Entries belong to a generation tied to the snapshot version; the first
+ * read after a write commits swaps in an empty generation, so stale bytes
+ * are never served and old ones are dropped wholesale.
+ */
+@Component
+public class CatalogResponseCache {
+
+    private final CategoryCatalog categoryCatalog;
+    private final CatalogETags etags;
+    private final ObjectMapper objectMapper;
+    private final int maxEntries;
+    private final int minGzipBytes;
+    private final AtomicReference<Generation> generation = new AtomicReference<>(new Generation(-1));
+    private final Counter hits;
+    private final Counter misses;
+
+    public CatalogResponseCache(
+            CategoryCatalog categoryCatalog,
+            CatalogETags etags,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${app.catalog.response-cache.max-entries:1024}") int maxEntries,
+            @Value("${app.catalog.response-cache.min-gzip-bytes:512}") int minGzipBytes) {
+        this.categoryCatalog = categoryCatalog;
+        this.etags = etags;
+        this.objectMapper = objectMapper;
+        this.maxEntries = maxEntries;
+        this.minGzipBytes = minGzipBytes;
+        this.hits = Counter.builder("catalog.response.cache")
+                .description("Category responses served from pre-serialized bytes")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("catalog.response.cache")
+                .description("Category responses served from pre-serialized bytes")
+                .tag("result", "miss")
+                .register(meterRegistry);
+    }
+
+    public void write(String key, HttpServletRequest request, HttpServletResponse response,
+                      Supplier<?> renderer) throws IOException {
+        CategorySnapshot snapshot = categoryCatalog.snapshot();
+        Generation current = generationFor(snapshot.getVersion());
+
+        Entry entry = current.entries.get(key);
+        if (entry != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+            entry = render(renderer.get());
+            if (current.entries.size() < maxEntries) {
+                Entry raced = current.entries.putIfAbsent(key, entry);
+                if (raced != null) {
+                    entry = raced;
+                }
+            }
+        }
+
+        boolean gzip = entry.gzip() != null && acceptsGzip(request);
+        byte[] body = gzip ? entry.gzip() : entry.json();
+        String etag = etags.forRequest(snapshot, request);
+
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        etags.writeValidators(response, gzip ? etags.gzipVariant(etag) : etag, CatalogETags.lastModified(snapshot));
+        if (gzip) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        response.setContentLength(body.length);
+        if (!"HEAD".equals(request.getMethod())) {
+            response.getOutputStream().write(body);
+        }
+    }
+
+    private Generation generationFor(long version) {
+        Generation current = generation.get();
+        while (current.version < version) {
+            Generation next = new Generation(version);
+            if (generation.compareAndSet(current, next)) {
+                return next;
+            }
+            current = generation.get();
+        }
+        // A reader still holding an older snapshot renders without caching
+        return current.version == version ? current : new Generation(version);
+    }
+
+    private Entry render(Object value) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(value);
+            if (json.length < minGzipBytes) {
+                return new Entry(json, null);
+            }
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(json.length / 4 + 64);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(buffer)) {
+                gzip.write(json);
+            }
+            return new Entry(json, buffer.toByteArray());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to serialize category response", e);
+        }
+    }
+
+    private static boolean acceptsGzip(HttpServletRequest request) {
+        String header = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        if (header == null) {
+            return false;
+        }
+        for (String part : header.split(",")) {
+            String[] tokens = part.trim().split(";");
+            String coding = tokens[0].trim();
+            if (!"gzip".equalsIgnoreCase(coding) && !"*".equals(coding)) {
+                continue;
+            }
+            for (int i = 1; i < tokens.length; i++) {
+                String param = tokens[i].trim();
+                if (param.startsWith("q=") && isZero(param.substring(2))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private static boolean isZero(String quality) {
+        try {
+            return Double.parseDouble(quality) == 0;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private record Entry(byte[] json, byte[] gzip) {
+    }
+
+    private static final class Generation {
+
+        private final long version;
+        private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+        private Generation(long version) {
+            this.version = version;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.romen.inventory.config;
+
+import com.romen.inventory.controller.CategoryController;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Writes the validators computed by {@link CatalogConditionalGetInterceptor}
+ * onto successful {@link CatalogRead} responses that go through the message
+ * converters. Error bodies come from exception handlers, which are not
+ * {@link CatalogRead}, and any non-2xx status is skipped as well.
+ */
+@ControllerAdvice(assignableTypes = CategoryController.class)
+public class CatalogValidatorsAdvice implements ResponseBodyAdvice<Object> {
+
+    private final CatalogETags etags;
+
+    public CatalogValidatorsAdvice(CatalogETags etags) {
+        this.etags = etags;
+    }
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return returnType.hasMethodAnnotation(CatalogRead.class);
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        if (request instanceof ServletServerHttpRequest servletRequest
+                && response instanceof ServletServerHttpResponse servletResponse) {
+            HttpServletRequest httpRequest = servletRequest.getServletRequest();
+            HttpServletResponse httpResponse = servletResponse.getServletResponse();
+            String etag = (String) httpRequest.getAttribute(CatalogConditionalGetInterceptor.ETAG_ATTRIBUTE);
+            Long lastModified = (Long) httpRequest.getAttribute(CatalogConditionalGetInterceptor.LAST_MODIFIED_ATTRIBUTE);
+            int status = httpResponse.getStatus();
+            if (etag != null && lastModified != null && status >= 200 && status < 300) {
+                etags.writeValidators(httpResponse, etag, lastModified);
+            }
+        }
+        return body;
+    }
+}
@@ -0,0 +1,49 @@
+package com.romen.inventory.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Reports the Hikari pool as DOWN once app.health.pool-max-waiting threads
+ * are queued for a connection: every connection is busy and requests are
+ * already waiting, so new traffic is better sent to another node.
+ * Reads the pool's counters only; no connection is borrowed.
+ */
+@Component("connectionPool")
+public class ConnectionPoolHealthIndicator extends CachedHealthIndicator {
+
+    private final DataSource dataSource;
+    private final int maxWaiting;
+
+    public ConnectionPoolHealthIndicator(
+            DataSource dataSource,
+            @Value("${app.health.cache-ttl:5s}") Duration cacheTtl,
+            @Value("${app.health.pool-max-waiting:10}") int maxWaiting) {
+        super(cacheTtl);
+        this.dataSource = dataSource;
+        this.maxWaiting = maxWaiting;
+    }
+
+    @Override
+    protected Health check() throws Exception {
+        HikariPoolMXBean pool = dataSource.unwrap(HikariDataSource.class).getHikariPoolMXBean();
+        if (pool == null) {
+            // The pool starts lazily with the first connection
+            return Health.unknown().withDetail("pool", "not started").build();
+        }
+        int waiting = pool.getThreadsAwaitingConnection();
+        Health.Builder builder = waiting >= maxWaiting ? Health.down() : Health.up();
+        return builder
+                .withDetail("active", pool.getActiveConnections())
+                .withDetail("idle", pool.getIdleConnections())
+                .withDetail("total", pool.getTotalConnections())
+                .withDetail("waiting", waiting)
+                .build();
+    }
+}
@@ -0,0 +1,75 @@
+package com.romen.inventory.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Borrows a connection and validates it, giving up after app.health.database-timeout.
+ * The check runs on its own thread so an exhausted pool, which would block
+ * for the full Hikari connection-timeout, turns into a prompt DOWN; a check
+ * still stuck from an earlier probe is waited on rather than started again.
+ */
+@Component("database")
+public class DatabaseHealthIndicator extends CachedHealthIndicator {
+
+    private final DataSource dataSource;
+    private final Duration timeout;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "health-database");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private CompletableFuture<Long> inFlight;
+
+    public DatabaseHealthIndicator(
+            DataSource dataSource,
+            @Value("${app.health.cache-ttl:5s}") Duration cacheTtl,
+            @Value("${app.health.database-timeout:2s}") Duration timeout) {
+        super(cacheTtl);
+        this.dataSource = dataSource;
+        this.timeout = timeout;
+    }
+
+    @Override
+    protected Health check() throws Exception {
+        CompletableFuture<Long> probe;
+        synchronized (this) {
+            if (inFlight == null || inFlight.isDone()) {
+                inFlight = CompletableFuture.supplyAsync(this::validate, executor);
+            }
+            probe = inFlight;
+        }
+        try {
+            long millis = probe.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            return Health.up().withDetail("validationMillis", millis).build();
+        } catch (ExecutionException e) {
+            return Health.down().withDetail("error", e.getCause().getMessage()).build();
+        } catch (TimeoutException e) {
+            return Health.down().withDetail("error", "No valid connection within " + timeout.toMillis() + " ms").build();
+        }
+    }
+
+    private long validate() {
+        long start = System.nanoTime();
+        try (Connection connection = dataSource.getConnection()) {
+            int seconds = (int) Math.max(1, timeout.toSeconds());
+            if (!connection.isValid(seconds)) {
+                throw new IllegalStateException("Connection failed validation");
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+}
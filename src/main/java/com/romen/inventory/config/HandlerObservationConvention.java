@@ -0,0 +1,28 @@
+package com.romen.inventory.config;
+
+import io.micrometer.common.KeyValue;
+import io.micrometer.common.KeyValues;
+import org.springframework.http.server.observation.DefaultServerRequestObservationConvention;
+import org.springframework.http.server.observation.ServerRequestObservationContext;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Adds a handler tag (Controller#method) to http.server.requests, so latency
+ * histograms can be read per controller method as well as per URI pattern.
+ */
+@Component
+public class HandlerObservationConvention extends DefaultServerRequestObservationConvention {
+
+    private static final KeyValue NO_HANDLER = KeyValue.of("handler", "none");
+
+    @Override
+    public KeyValues getLowCardinalityKeyValues(ServerRequestObservationContext context) {
+        Object handler = context.getCarrier().getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE);
+        KeyValue handlerTag = handler instanceof HandlerMethod method
+                ? KeyValue.of("handler", method.getBeanType().getSimpleName() + "#" + method.getMethod().getName())
+                : NO_HANDLER;
+        return super.getLowCardinalityKeyValues(context).and(handlerTag);
+    }
+}
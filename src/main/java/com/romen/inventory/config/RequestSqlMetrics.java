@@ -0,0 +1,134 @@
+package com.romen.inventory.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.hibernate.BaseSessionEventListener;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SQL statements executed and time spent in JDBC per request, recorded as
+ * http.server.requests.sql.statements and http.server.requests.sql.duration
+ * with the same method and uri tags as http.server.requests. A Hibernate
+ * session listener adds to a per-request tally held in a thread local; both
+ * are plain field updates, so this is cheap enough to leave on. Statements
+ * run off the request thread (streaming exports, scheduled jobs) are not
+ * attributed to a request.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class RequestSqlMetrics extends OncePerRequestFilter implements HibernatePropertiesCustomizer {
+
+    private static final ThreadLocal<Tally> CURRENT = new ThreadLocal<>();
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Meters> meters = new ConcurrentHashMap<>();
+
+    public RequestSqlMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        hibernateProperties.put(AvailableSettings.AUTO_SESSION_EVENTS_LISTENER, Listener.class.getName());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Tally tally = new Tally();
+        CURRENT.set(tally);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            CURRENT.remove();
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            Meters target = meters.computeIfAbsent(request.getMethod() + " " + (pattern != null ? pattern : "UNKNOWN"),
+                    key -> register(request.getMethod(), pattern != null ? pattern.toString() : "UNKNOWN"));
+            target.statements().record(tally.statements);
+            target.duration().record(tally.nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Meters register(String method, String uri) {
+        return new Meters(
+                DistributionSummary.builder("http.server.requests.sql.statements")
+                        .description("SQL statements executed per request")
+                        .tags("method", method, "uri", uri)
+                        .serviceLevelObjectives(1, 2, 5, 10, 20, 50, 100)
+                        .register(meterRegistry),
+                Timer.builder("http.server.requests.sql.duration")
+                        .description("Time spent executing SQL per request")
+                        .tags("method", method, "uri", uri)
+                        .serviceLevelObjectives(Duration.ofMillis(1), Duration.ofMillis(5), Duration.ofMillis(25),
+                                Duration.ofMillis(100), Duration.ofMillis(500))
+                        .register(meterRegistry));
+    }
+
+    private static final class Tally {
+        long statements;
+        long nanos;
+    }
+
+    private record Meters(DistributionSummary statements, Timer duration) {
+    }
+
+    /**
+     * Created by Hibernate for every session. It binds to the tally of the
+     * request whose thread opened the session, or does nothing outside one.
+     */
+    public static class Listener extends BaseSessionEventListener {
+
+        private final Tally tally = CURRENT.get();
+        private long start;
+
+        @Override
+        public void jdbcExecuteStatementStart() {
+            startTiming();
+        }
+
+        @Override
+        public void jdbcExecuteStatementEnd() {
+            stopTiming();
+        }
+
+        @Override
+        public void jdbcExecuteBatchStart() {
+            startTiming();
+        }
+
+        @Override
+        public void jdbcExecuteBatchEnd() {
+            stopTiming();
+        }
+
+        private void startTiming() {
+            if (tally != null) {
+                start = System.nanoTime();
+            }
+        }
+
+        private void stopTiming() {
+            if (tally != null) {
+                tally.statements++;
+                tally.nanos += System.nanoTime() - start;
+            }
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.romen.inventory.config;
+
+import com.romen.inventory.service.FileStorageService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Checks that app.upload-dir has at least app.health.upload-min-free of
+ * usable space and accepts a new file, by creating and deleting a temp file
+ * where uploads are staged.
+ */
+@Component("uploadStorage")
+public class UploadStorageHealthIndicator extends CachedHealthIndicator {
+
+    private final FileStorageService fileStorageService;
+    private final DataSize minFree;
+
+    public UploadStorageHealthIndicator(
+            FileStorageService fileStorageService,
+            @Value("${app.health.cache-ttl:5s}") Duration cacheTtl,
+            @Value("${app.health.upload-min-free:100MB}") DataSize minFree) {
+        super(cacheTtl);
+        this.fileStorageService = fileStorageService;
+        this.minFree = minFree;
+    }
+
+    @Override
+    protected Health check() throws Exception {
+        Path probe = fileStorageService.createTempFile();
+        long usable;
+        try {
+            usable = Files.getFileStore(probe).getUsableSpace();
+        } finally {
+            Files.deleteIfExists(probe);
+        }
+        Health.Builder builder = usable >= minFree.toBytes() ? Health.up() : Health.down();
+        return builder
+                .withDetail("path", fileStorageService.resolve("").toString())
+                .withDetail("free", usable)
+                .withDetail("threshold", minFree.toBytes())
+                .build();
+    }
+}
@@ -0,0 +1,60 @@
+package com.romen.inventory.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Opt-in virtual-thread mode (app.threads.virtual=true, Java 21 runtime).
+ * Tomcat hands each request to a new virtual thread instead of its bounded
+ * platform pool, and the application task executor (MVC async, streaming
+ * exports) does the same. With no thread pool in the way, concurrent database
+ * work is limited by the Hikari pool and everything else by
+ * server.tomcat.max-connections. CPU-bound pools (password hashing, image
+ * variants) deliberately stay on platform threads.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "app.threads.virtual", havingValue = "true")
+@Slf4j
+public class VirtualThreadsConfiguration {
+
+    public VirtualThreadsConfiguration() {
+        if (!VirtualThreads.isSupported()) {
+            throw new IllegalStateException("app.threads.virtual=true requires Java 21 or newer, running "
+                    + Runtime.version());
+        }
+        log.info("Serving requests on virtual threads");
+    }
+
+    // Beans of their own so the context shuts them down, after Tomcat has stopped taking requests
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService httpVirtualThreadExecutor() {
+        return VirtualThreads.newExecutor("http-vt-");
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService taskVirtualThreadExecutor() {
+        return VirtualThreads.newExecutor("task-vt-");
+    }
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer(
+            @Qualifier("httpVirtualThreadExecutor") ExecutorService executor) {
+        return protocolHandler -> protocolHandler.setExecutor(executor);
+    }
+
+    // Replaces Boot's pooled applicationTaskExecutor, which Spring MVC uses for async requests
+    @Bean(name = {TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME, "taskExecutor"})
+    public AsyncTaskExecutor applicationTaskExecutor(
+            @Qualifier("taskVirtualThreadExecutor") ExecutorService executor) {
+        return new TaskExecutorAdapter(executor);
+    }
+}
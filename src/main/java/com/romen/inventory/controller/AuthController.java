@@ -3,11 +3,13 @@ package com.romen.inventory.controller;
 import com.romen.inventory.dto.*;
 import com.romen.inventory.entity.OtpLog;
 import com.romen.inventory.entity.User;
+import com.romen.inventory.security.AuthRateLimiter;
 import com.romen.inventory.service.AuthService;
-import com.romen.inventory.service.EmailService;
 import com.romen.inventory.service.OtpService;
 import com.romen.inventory.service.UserService;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -22,16 +24,21 @@ public class AuthController {
     private final AuthService authService;
     private final UserService userService;
     private final OtpService otpService;
-    private final EmailService emailService;
+    private final AuthRateLimiter rateLimiter;
+
+    @Value("${app.otp.expose-in-response:false}")
+    private boolean exposeOtpInResponse;
 
     @PostMapping("/login")
-    public ResponseEntity<AuthResponse> login(@RequestBody LoginRequest request) {
+    public ResponseEntity<AuthResponse> login(@RequestBody LoginRequest request, HttpServletRequest httpRequest) {
+        rateLimiter.check(AuthRateLimiter.Endpoint.LOGIN, httpRequest.getRemoteAddr(), request.getIdentifier());
         AuthResponse response = authService.authenticate(request);
         return ResponseEntity.ok(response);
     }
 
     @PostMapping("/register")
-    public ResponseEntity<AuthResponse> register(@RequestBody RegisterRequest request) {
+    public ResponseEntity<AuthResponse> register(@RequestBody RegisterRequest request, HttpServletRequest httpRequest) {
+        rateLimiter.check(AuthRateLimiter.Endpoint.REGISTER, httpRequest.getRemoteAddr(), request.getEmail());
         User user = userService.registerUser(request);
 
         AuthResponse response = AuthResponse.builder()
@@ -49,31 +56,35 @@ public class AuthController {
     }
 
     @PostMapping("/send-otp")
-    public ResponseEntity<Map<String, String>> sendOtp(@RequestBody SendOtpRequest request) {
+    public ResponseEntity<Map<String, String>> sendOtp(@RequestBody SendOtpRequest request, HttpServletRequest httpRequest) {
         String identifier = request.getIdentifier();
+        rateLimiter.check(AuthRateLimiter.Endpoint.SEND_OTP, httpRequest.getRemoteAddr(), identifier);
         boolean isEmail = identifier.contains("@");
 
         OtpLog.OtpType otpType = OtpLog.OtpType.valueOf(request.getOtpType().toUpperCase());
 
-        OtpLog otpLog;
+        String otp;
         if (isEmail) {
-            otpLog = otpService.createOtp(identifier, null, otpType);
-            emailService.sendOtpEmail(identifier, otpLog.getOtp(), otpType.name());
+            otp = otpService.createOtp(identifier, null, otpType);
         } else {
-            otpLog = otpService.createOtp(null, identifier, otpType);
+            otp = otpService.createOtp(null, identifier, otpType);
         }
 
         Map<String, String> response = new HashMap<>();
         response.put("message", "OTP sent successfully");
         response.put("identifier", identifier);
         response.put("otpType", otpType.name());
-        response.put("otp", "123456"); // For testing
+        if (exposeOtpInResponse) {
+            // Development only: lets clients finish OTP flows without an SMS/email channel
+            response.put("otp", otp);
+        }
 
         return ResponseEntity.ok(response);
     }
 
     @PostMapping("/verify-email")
-    public ResponseEntity<Map<String, String>> verifyEmail(@RequestBody VerifyRequest request) {
+    public ResponseEntity<Map<String, String>> verifyEmail(@RequestBody VerifyRequest request, HttpServletRequest httpRequest) {
+        rateLimiter.check(AuthRateLimiter.Endpoint.VERIFY_EMAIL, httpRequest.getRemoteAddr(), request.getIdentifier());
         User user = userService.verifyEmail(request.getIdentifier(), request.getOtp());
 
         Map<String, String> response = new HashMap<>();
@@ -85,7 +96,8 @@ public class AuthController {
     }
 
     @PostMapping("/reset-password")
-    public ResponseEntity<Map<String, String>> resetPassword(@RequestBody ResetPasswordRequest request) {
+    public ResponseEntity<Map<String, String>> resetPassword(@RequestBody ResetPasswordRequest request, HttpServletRequest httpRequest) {
+        rateLimiter.check(AuthRateLimiter.Endpoint.RESET_PASSWORD, httpRequest.getRemoteAddr(), request.getIdentifier());
         userService.resetPassword(request.getIdentifier(), request.getOtp(), request.getNewPassword());
 
         Map<String, String> response = new HashMap<>();
@@ -101,6 +113,17 @@ public class AuthController {
         return ResponseEntity.ok(response);
     }
 
+    @PostMapping("/logout")
+    public ResponseEntity<Map<String, String>> logout(
+            @RequestHeader("Authorization") String authHeader,
+            @RequestBody(required = false) RefreshTokenRequest request) {
+        authService.logout(authHeader, request != null ? request.getRefreshToken() : null);
+
+        Map<String, String> response = new HashMap<>();
+        response.put("message", "Logged out successfully");
+        return ResponseEntity.ok(response);
+    }
+
     @GetMapping("/test")
     public ResponseEntity<Map<String, String>> test() {
         Map<String, String> response = new HashMap<>();
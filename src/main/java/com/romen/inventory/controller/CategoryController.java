@@ -1,18 +1,34 @@
 // controller/CategoryController.java
 package com.romen.inventory.controller;
 
+import com.romen.inventory.config.CatalogResponseCache;
+import com.romen.inventory.config.CatalogRead;
+import com.romen.inventory.dto.CategoryImportReport;
 import com.romen.inventory.dto.CategoryRequest;
 import com.romen.inventory.dto.CategoryResponse;
-import com.romen.inventory.dto.CategoryTreeResponse;
+import com.romen.inventory.dto.CursorPage;
+import com.romen.inventory.service.CategoryExportService;
+import com.romen.inventory.service.CategoryImportService;
 import com.romen.inventory.service.CategoryService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/categories")
@@ -20,6 +36,9 @@ import java.util.List;
 public class CategoryController {
 
     private final CategoryService categoryService;
+    private final CatalogResponseCache catalogResponseCache;
+    private final CategoryExportService categoryExportService;
+    private final CategoryImportService categoryImportService;
 
     @PostMapping
     @PreAuthorize("hasAnyRole('ADMIN', 'EMPLOYEE')")
@@ -34,45 +53,129 @@ public class CategoryController {
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @PreAuthorize("hasAnyRole('ADMIN', 'EMPLOYEE')")
+    public ResponseEntity<CategoryImportReport> importCategories(
+            @RequestParam("file") MultipartFile file,
+            Authentication authentication) throws IOException {
+
+        com.romen.inventory.entity.User currentUser =
+                (com.romen.inventory.entity.User) authentication.getPrincipal();
+
+        CategoryImportService.Format format =
+                CategoryImportService.Format.of(file.getContentType(), file.getOriginalFilename());
+        try (InputStream in = file.getInputStream()) {
+            return ResponseEntity.ok(categoryImportService.importCategories(in, format, currentUser));
+        }
+    }
+
+    // Raw CSV or JSON body, for imports larger than the multipart limit
+    @PostMapping(value = "/import", consumes = {"text/csv", MediaType.APPLICATION_JSON_VALUE, "application/x-ndjson"})
+    @PreAuthorize("hasAnyRole('ADMIN', 'EMPLOYEE')")
+    public ResponseEntity<CategoryImportReport> importCategoriesFromBody(
+            HttpServletRequest request,
+            Authentication authentication) throws IOException {
+
+        com.romen.inventory.entity.User currentUser =
+                (com.romen.inventory.entity.User) authentication.getPrincipal();
+
+        CategoryImportService.Format format = CategoryImportService.Format.of(request.getContentType(), null);
+        return ResponseEntity.ok(categoryImportService.importCategories(request.getInputStream(), format, currentUser));
+    }
+
     @GetMapping
+    @CatalogRead
     @PreAuthorize("hasAnyRole('ADMIN', 'EMPLOYEE')")
-    public ResponseEntity<List<CategoryResponse>> getAllCategories() {
-        List<CategoryResponse> categories = categoryService.getAllCategories();
+    public ResponseEntity<CursorPage<CategoryResponse>> getAllCategories(
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
+        CursorPage<CategoryResponse> categories = categoryService.getAllCategories(after, limit, includeTotal);
         return ResponseEntity.ok(categories);
     }
 
+    // Snapshot-backed reads are written from pre-serialized bytes
     @GetMapping("/main")
+    @CatalogRead
     @PreAuthorize("hasAnyRole('ADMIN', 'EMPLOYEE')")
-    public ResponseEntity<List<CategoryResponse>> getMainCategories() {
-        List<CategoryResponse> categories = categoryService.getMainCategories();
-        return ResponseEntity.ok(categories);
+    public void getMainCategories(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        catalogResponseCache.write("main", request, response, categoryService::getMainCategories);
     }
 
     @GetMapping("/tree")
+    @CatalogRead
+    @PreAuthorize("hasAnyRole('ADMIN', 'EMPLOYEE')")
+    public void getCategoryTree(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        catalogResponseCache.write("tree", request, response, categoryService::getCategoryTree);
+    }
+
+    @GetMapping("/export")
     @PreAuthorize("hasAnyRole('ADMIN', 'EMPLOYEE')")
-    public ResponseEntity<List<CategoryTreeResponse>> getCategoryTree() {
-        List<CategoryTreeResponse> tree = categoryService.getCategoryTree();
-        return ResponseEntity.ok(tree);
+    public ResponseEntity<StreamingResponseBody> exportCategories(
+            @RequestParam(defaultValue = "ndjson") String format) {
+        CategoryExportService.Format exportFormat = CategoryExportService.Format.parse(format);
+        StreamingResponseBody body = out -> categoryExportService.export(exportFormat, out);
+        return ResponseEntity.ok()
+                .contentType(exportFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("categories." + exportFormat.getExtension())
+                        .build()
+                        .toString())
+                .body(body);
     }
 
     @GetMapping("/{id}")
+    @CatalogRead
     @PreAuthorize("hasAnyRole('ADMIN', 'EMPLOYEE')")
     public ResponseEntity<CategoryResponse> getCategoryById(@PathVariable Long id) {
         CategoryResponse category = categoryService.getCategoryById(id);
         return ResponseEntity.ok(category);
     }
 
+    @GetMapping("/{id}/ancestors")
+    @CatalogRead
+    @PreAuthorize("hasAnyRole('ADMIN', 'EMPLOYEE')")
+    public ResponseEntity<List<CategoryResponse>> getAncestors(@PathVariable Long id) {
+        List<CategoryResponse> ancestors = categoryService.getAncestors(id);
+        return ResponseEntity.ok(ancestors);
+    }
+
+    @GetMapping("/{id}/descendants")
+    @CatalogRead
+    @PreAuthorize("hasAnyRole('ADMIN', 'EMPLOYEE')")
+    public ResponseEntity<List<CategoryResponse>> getDescendants(@PathVariable Long id) {
+        List<CategoryResponse> descendants = categoryService.getDescendants(id);
+        return ResponseEntity.ok(descendants);
+    }
+
+    @GetMapping("/{id}/descendants/count")
+    @CatalogRead
+    @PreAuthorize("hasAnyRole('ADMIN', 'EMPLOYEE')")
+    public ResponseEntity<Map<String, Long>> countDescendants(@PathVariable Long id) {
+        Map<String, Long> response = new HashMap<>();
+        response.put("count", categoryService.countDescendants(id));
+        return ResponseEntity.ok(response);
+    }
+
     @GetMapping("/parent/{parentId}")
+    @CatalogRead
     @PreAuthorize("hasAnyRole('ADMIN', 'EMPLOYEE')")
-    public ResponseEntity<List<CategoryResponse>> getSubcategories(@PathVariable Long parentId) {
-        List<CategoryResponse> subcategories = categoryService.getSubcategories(parentId);
-        return ResponseEntity.ok(subcategories);
+    public void getSubcategories(@PathVariable Long parentId, HttpServletRequest request,
+                                 HttpServletResponse response) throws IOException {
+        catalogResponseCache.write("parent/" + parentId, request, response,
+                () -> categoryService.getSubcategories(parentId));
     }
 
     @GetMapping("/search")
+    @CatalogRead
     @PreAuthorize("hasAnyRole('ADMIN', 'EMPLOYEE')")
-    public ResponseEntity<List<CategoryResponse>> searchCategories(@RequestParam String keyword) {
-        List<CategoryResponse> categories = categoryService.searchCategories(keyword);
+    public ResponseEntity<CursorPage<CategoryResponse>> searchCategories(
+            @RequestParam String keyword,
+            @RequestParam(required = false) Long parentId,
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
+        CursorPage<CategoryResponse> categories = categoryService.searchCategories(keyword, parentId, after, limit, includeTotal);
         return ResponseEntity.ok(categories);
     }
 
@@ -1,13 +1,22 @@
 package com.romen.inventory.controller;
 
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.HealthComponent;
+import org.springframework.boot.actuate.health.HealthEndpoint;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import java.util.HashMap;
 import java.util.Map;
 
 @RestController
 @RequestMapping("/api")
+@RequiredArgsConstructor
 public class TestController {
 
+    private final HealthEndpoint healthEndpoint;
+
     @GetMapping("/hello")
     public Map<String, String> hello() {
         Map<String, String> response = new HashMap<>();
@@ -17,13 +26,19 @@ public class TestController {
         return response;
     }
 
+    // Same verdict as the readiness probe (/actuator/health/readiness)
     @GetMapping("/health")
-    public Map<String, String> health() {
+    public ResponseEntity<Map<String, String>> health() {
+        HealthComponent readiness = healthEndpoint.healthForPath("readiness");
+        Status status = readiness != null ? readiness.getStatus() : Status.UNKNOWN;
+        String version = TestController.class.getPackage().getImplementationVersion();
+
         Map<String, String> response = new HashMap<>();
-        response.put("status", "UP");
+        response.put("status", status.getCode());
         response.put("service", "Bakery Inventory System");
-        response.put("version", "1.0.0");
-        return response;
+        response.put("version", version != null ? version : "dev");
+        return ResponseEntity.status(Status.UP.equals(status) ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE)
+                .body(response);
     }
 
     @GetMapping("/test")
@@ -1,5 +1,6 @@
 package com.romen.inventory.controller;
 
+import com.romen.inventory.dto.CursorPage;
 import com.romen.inventory.dto.UserResponse;
 import com.romen.inventory.entity.User;
 import com.romen.inventory.service.CustomUserDetailsService; // Changed import
@@ -8,7 +9,6 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
-import java.util.List;
 
 @RestController
 @RequestMapping("/api/users")
@@ -44,11 +44,24 @@ public class UserController {
 
     @GetMapping
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<List<UserResponse>> getAllUsers() {
-        List<UserResponse> users = userService.getAllUsers();
+    public ResponseEntity<CursorPage<UserResponse>> getAllUsers(
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
+        CursorPage<UserResponse> users = userService.getAllUsers(after, limit, includeTotal);
         return ResponseEntity.ok(users);
     }
 
+    @GetMapping("/employees")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<CursorPage<UserResponse>> getActiveEmployees(
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
+        CursorPage<UserResponse> employees = userService.getActiveEmployees(after, limit, includeTotal);
+        return ResponseEntity.ok(employees);
+    }
+
     @GetMapping("/{id}")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<UserResponse> getUserById(@PathVariable Long id) {
@@ -0,0 +1,31 @@
+package com.romen.inventory.dto;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+/**
+ * One category as written by the export endpoint. {@code parentPath} is the
+ * chain of ancestor names from the root, separated by {@code " > "}.
+ */
+@Value
+@Builder
+@JsonPropertyOrder({"id", "name", "description", "parentId", "parentPath", "depth", "expiryDays",
+        "displayOrder", "isActive", "imageUrl", "createdBy", "createdAt", "updatedAt"})
+public class CategoryExportRow {
+    Long id;
+    String name;
+    String description;
+    Long parentId;
+    String parentPath;
+    Integer depth;
+    Integer expiryDays;
+    Integer displayOrder;
+    Boolean isActive;
+    String imageUrl;
+    String createdBy;
+    LocalDateTime createdAt;
+    LocalDateTime updatedAt;
+}
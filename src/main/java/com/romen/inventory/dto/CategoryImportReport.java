@@ -0,0 +1,38 @@
+package com.romen.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CategoryImportReport {
+    private int total;
+    private int created;
+    private int failed;
+    private long durationMs;
+    private List<RowResult> rows;
+
+    public enum Status {
+        CREATED,
+        FAILED
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowResult {
+        // 1-based position among the data rows of the input
+        private int row;
+        private String name;
+        private Status status;
+        private Long id;
+        private String message;
+    }
+}
@@ -0,0 +1,34 @@
+package com.romen.inventory.dto;
+
+import com.fasterxml.jackson.annotation.JsonAlias;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One category in a bulk import. The parent is referenced by {@code parentId}
+ * of an existing category, or by {@code parentPath}: ancestor names separated
+ * by {@code " > "} (the format the export writes), or just the parent's name
+ * when that is unambiguous. Columns the import does not use, such as the
+ * export's {@code id} and {@code createdBy}, are ignored.
+ */
+@Data
+@NoArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class CategoryImportRow {
+
+    private String name;
+
+    private String description;
+
+    @JsonAlias("parent")
+    private String parentPath;
+
+    private Long parentId;
+
+    private Integer expiryDays = 3;
+
+    private Integer displayOrder = 0;
+
+    private Boolean isActive = true;
+}
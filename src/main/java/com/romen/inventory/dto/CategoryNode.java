@@ -0,0 +1,62 @@
+package com.romen.inventory.dto;
+
+import com.romen.inventory.entity.Category;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+/**
+ * Flat, immutable view of one category row with its parent id and creator
+ * name already resolved. Loaded by a single projection query and held in the
+ * in-memory catalog snapshot.
+ */
+@Value
+@Builder(toBuilder = true)
+@AllArgsConstructor
+public class CategoryNode {
+    Long id;
+    String name;
+    String description;
+    String imageUrl;
+    String thumbnailUrl;
+    String mediumUrl;
+    Long parentId;
+    String path;
+    Integer depth;
+    Integer expiryDays;
+    Integer displayOrder;
+    Boolean isActive;
+    String createdBy;
+    LocalDateTime createdAt;
+    LocalDateTime updatedAt;
+
+    public static CategoryNode from(Category category) {
+        return CategoryNode.builder()
+                .id(category.getId())
+                .name(category.getName())
+                .description(category.getDescription())
+                .imageUrl(category.getImageUrl())
+                .thumbnailUrl(category.getThumbnailUrl())
+                .mediumUrl(category.getMediumUrl())
+                .parentId(category.getParent() != null ? category.getParent().getId() : null)
+                .path(category.getPath())
+                .depth(category.getDepth())
+                .expiryDays(category.getExpiryDays())
+                .displayOrder(category.getDisplayOrder())
+                .isActive(category.getIsActive())
+                .createdBy(category.getCreatedBy() != null ? category.getCreatedBy().getFullName() : null)
+                .createdAt(category.getCreatedAt())
+                .updatedAt(category.getUpdatedAt())
+                .build();
+    }
+
+    public boolean isActiveNode() {
+        return Boolean.TRUE.equals(isActive);
+    }
+
+    public int sortOrder() {
+        return displayOrder != null ? displayOrder : 0;
+    }
+}
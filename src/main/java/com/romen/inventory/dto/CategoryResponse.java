@@ -17,8 +17,11 @@ public class CategoryResponse {
     private String name;
     private String description;
     private String imageUrl;
+    private String thumbnailUrl;
+    private String mediumUrl;
     private Long parentId;
     private String parentName;
+    private Integer depth;
     private Integer expiryDays;
     private Integer displayOrder;
     private Boolean isActive;
@@ -15,5 +15,7 @@ public class CategoryTreeResponse {
     private Long id;
     private String name;
     private String imageUrl;
+    private String thumbnailUrl;
+    private String mediumUrl;
     private List<CategoryTreeResponse> children;
 }
\ No newline at end of file
@@ -0,0 +1,61 @@
+package com.romen.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a keyset-paginated listing. Pass {@code nextCursor} back as
+ * {@code ?after=} to get the following page; it is null on the last page.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 200;
+
+    private List<T> items;
+    private Long nextCursor;
+    private boolean hasMore;
+    private int limit;
+    private Long totalCount;
+
+    public static int clampLimit(Integer limit) {
+        if (limit == null || limit <= 0) {
+            return DEFAULT_LIMIT;
+        }
+        return Math.min(limit, MAX_LIMIT);
+    }
+
+    /**
+     * Builds a page from a query that fetched {@code limit + 1} rows; the extra
+     * row only signals that another page exists.
+     */
+    public static <T> CursorPage<T> of(List<T> rows, int limit, Function<T, Long> idOf, Long totalCount) {
+        boolean hasMore = rows.size() > limit;
+        List<T> items = hasMore ? rows.subList(0, limit) : rows;
+        return CursorPage.<T>builder()
+                .items(items)
+                .nextCursor(hasMore ? idOf.apply(items.get(items.size() - 1)) : null)
+                .hasMore(hasMore)
+                .limit(limit)
+                .totalCount(totalCount)
+                .build();
+    }
+
+    public <R> CursorPage<R> map(Function<T, R> mapper) {
+        return CursorPage.<R>builder()
+                .items(items.stream().map(mapper).toList())
+                .nextCursor(nextCursor)
+                .hasMore(hasMore)
+                .limit(limit)
+                .totalCount(totalCount)
+                .build();
+    }
+}
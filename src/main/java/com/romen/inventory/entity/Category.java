@@ -7,6 +7,7 @@ import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 @Entity
@@ -14,7 +15,9 @@ import java.util.List;
         indexes = {
                 @Index(name = "idx_categories_parent", columnList = "parent_id"),
                 @Index(name = "idx_categories_active", columnList = "is_active"),
-                @Index(name = "idx_categories_order", columnList = "display_order")
+                @Index(name = "idx_categories_order", columnList = "display_order"),
+                @Index(name = "idx_categories_path", columnList = "path"),
+                @Index(name = "idx_categories_active_order", columnList = "is_active, display_order, id")
         })
 @Data
 @NoArgsConstructor
@@ -35,14 +38,30 @@ public class Category {
     @Column(name = "image_url")
     private String imageUrl;
 
+    // Downscaled copies of the image, filled in asynchronously after upload
+    @Column(name = "thumbnail_url")
+    private String thumbnailUrl;
+
+    @Column(name = "medium_url")
+    private String mediumUrl;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "parent_id")
     private Category parent;
 
+    // Materialized path of ancestor ids including this one, e.g. "/1/5/12/"
+    @Column(name = "path", length = 1000)
+    private String path;
+
+    // Number of ancestors; top-level categories are at depth 0
+    @Column(name = "depth")
+    private Integer depth;
+
     @Column(name = "expiry_days")
     private Integer expiryDays = 3;
 
-    @Column(name = "display_order")
+    // Part of the keyset over (display_order, id), so it must never be null
+    @Column(name = "display_order", nullable = false)
     private Integer displayOrder = 0;
 
     @Column(name = "is_active")
@@ -63,11 +82,33 @@ public class Category {
     @OneToMany(mappedBy = "parent", fetch = FetchType.LAZY)
     private List<Category> subCategories;
 
+    public static String childPath(String parentPath, Long id) {
+        return (parentPath != null ? parentPath : "/") + id + "/";
+    }
+
+    // Ids of all ancestors encoded in a path, root first, excluding the node itself
+    public static List<Long> ancestorIds(String path) {
+        List<Long> ids = new ArrayList<>();
+        if (path == null) {
+            return ids;
+        }
+        String[] segments = path.split("/");
+        for (int i = 0; i < segments.length - 1; i++) {
+            if (!segments[i].isEmpty()) {
+                ids.add(Long.valueOf(segments[i]));
+            }
+        }
+        return ids;
+    }
+
     @PrePersist
     @PreUpdate
-    private void validate() {
+    private void beforeWrite() {
         if (parent != null && parent.getId() != null && parent.getId().equals(this.id)) {
             throw new IllegalArgumentException("Category cannot be its own parent");
         }
+        if (displayOrder == null) {
+            displayOrder = 0;
+        }
     }
 }
\ No newline at end of file
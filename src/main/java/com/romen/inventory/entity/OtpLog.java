@@ -11,7 +11,7 @@ import java.time.LocalDateTime;
         indexes = {
                 @Index(name = "idx_otp_logs_email", columnList = "email"),
                 @Index(name = "idx_otp_logs_phone", columnList = "phone"),
-                @Index(name = "idx_otp_logs_expiry", columnList = "expires_at")
+                @Index(name = "idx_otp_logs_expiry", columnList = "otp_type, expires_at")
         })
 @Data
 @NoArgsConstructor
@@ -29,7 +29,8 @@ public class OtpLog {
     @Column(length = 15)
     private String phone;
 
-    @Column(nullable = false, length = 10)
+    // Hex HMAC of the code; the code itself is never stored
+    @Column(nullable = false, length = 64)
     private String otp;
 
     @Column(name = "otp_type", nullable = false, length = 20)
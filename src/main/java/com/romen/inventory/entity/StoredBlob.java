@@ -0,0 +1,36 @@
+// entity/StoredBlob.java
+package com.romen.inventory.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+// One row per distinct uploaded file; the file is removed when refCount drops to zero
+@Entity
+@Table(name = "stored_blobs")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StoredBlob {
+
+    // Relative storage path, e.g. "blobs/ab/cd/abcd....jpg"; the same value stored in imageUrl columns
+    @Id
+    @Column(length = 200)
+    private String path;
+
+    @Column(nullable = false, length = 64)
+    private String sha256;
+
+    @Column(nullable = false)
+    private Long size;
+
+    @Column(name = "ref_count", nullable = false)
+    private Integer refCount;
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+}
@@ -18,7 +18,8 @@ import java.util.List;
         indexes = {
                 @Index(name = "idx_users_email", columnList = "email"),
                 @Index(name = "idx_users_phone", columnList = "phone"),
-                @Index(name = "idx_users_active", columnList = "is_active")
+                @Index(name = "idx_users_active", columnList = "is_active"),
+                @Index(name = "idx_users_role_active", columnList = "role, is_active, id")
         })
 @Data
 @NoArgsConstructor
@@ -70,9 +71,19 @@ public class User implements UserDetails {
     @Column(name = "otp_expiry")
     private LocalDateTime otpExpiry;
 
+    // Consecutive wrong codes since the last success or lockout
     @Column(name = "otp_attempts")
     private Integer otpAttempts = 0;
 
+    // Set when otpAttempts hits the limit; the account unlocks on its own once this passes
+    @Column(name = "otp_locked_until")
+    private LocalDateTime otpLockedUntil;
+
+    // Bumped whenever credentials or account state change; tokens carrying an older value are stale
+    @Column(name = "security_version")
+    @Builder.Default
+    private Long securityVersion = 0L;
+
     @CreationTimestamp
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
@@ -101,7 +112,7 @@ public class User implements UserDetails {
 
     @Override
     public boolean isAccountNonLocked() {
-        return isActive && (otpAttempts == null || otpAttempts < 5);
+        return isActive && !isOtpLocked();
     }
 
     @Override
@@ -114,6 +125,18 @@ public class User implements UserDetails {
         return isActive && isEmailVerified;
     }
 
+    public boolean isOtpLocked() {
+        return otpLockedUntil != null && otpLockedUntil.isAfter(LocalDateTime.now());
+    }
+
+    public long currentSecurityVersion() {
+        return securityVersion != null ? securityVersion : 0L;
+    }
+
+    public void bumpSecurityVersion() {
+        this.securityVersion = currentSecurityVersion() + 1;
+    }
+
     public String getLoginIdentifier() {
         return email; // Can be used for both email/phone login
     }
@@ -1,14 +1,25 @@
 // repository/CategoryRepository.java
 package com.romen.inventory.repository;
 
+import com.romen.inventory.dto.CategoryNode;
 import com.romen.inventory.entity.Category;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 import jakarta.validation.constraints.NotBlank;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface CategoryRepository extends JpaRepository<Category, Long> {
@@ -29,8 +40,95 @@ public interface CategoryRepository extends JpaRepository<Category, Long> {
     @Query("SELECT c FROM Category c WHERE c.parent IS NULL AND c.isActive = true ORDER BY c.displayOrder")
     List<Category> findActiveMainCategories();
 
-    @Query("SELECT c FROM Category c WHERE LOWER(c.name) LIKE LOWER(CONCAT('%', :keyword, '%')) AND c.isActive = true")
-    List<Category> searchActiveCategories(@Param("keyword") String keyword);
+    // Whole hierarchy in one statement, with creator names resolved by join
+    @Query("SELECT new com.romen.inventory.dto.CategoryNode(c.id, c.name, c.description, c.imageUrl, c.thumbnailUrl, c.mediumUrl, p.id, " +
+            "c.path, c.depth, c.expiryDays, c.displayOrder, c.isActive, u.fullName, c.createdAt, c.updatedAt) " +
+            "FROM Category c LEFT JOIN c.parent p LEFT JOIN c.createdBy u")
+    List<CategoryNode> findAllNodes();
+
+    // Forward-only scan for exports; rows are unmanaged projections, so the session does not grow
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new com.romen.inventory.dto.CategoryNode(c.id, c.name, c.description, c.imageUrl, c.thumbnailUrl, c.mediumUrl, p.id, " +
+            "c.path, c.depth, c.expiryDays, c.displayOrder, c.isActive, u.fullName, c.createdAt, c.updatedAt) " +
+            "FROM Category c LEFT JOIN c.parent p LEFT JOIN c.createdBy u ORDER BY c.id")
+    Stream<CategoryNode> streamAllNodes();
+
+    // Subtree rooted at the given path (including the root) plus one extra node, via idx_categories_path
+    @Query("SELECT new com.romen.inventory.dto.CategoryNode(c.id, c.name, c.description, c.imageUrl, c.thumbnailUrl, c.mediumUrl, p.id, " +
+            "c.path, c.depth, c.expiryDays, c.displayOrder, c.isActive, u.fullName, c.createdAt, c.updatedAt) " +
+            "FROM Category c LEFT JOIN c.parent p LEFT JOIN c.createdBy u " +
+            "WHERE c.path LIKE CONCAT(:pathPrefix, '%') OR c.id = :alsoId")
+    List<CategoryNode> findSubtreeNodes(@Param("pathPrefix") String pathPrefix, @Param("alsoId") Long alsoId);
+
+    @Query("SELECT new com.romen.inventory.dto.CategoryNode(c.id, c.name, c.description, c.imageUrl, c.thumbnailUrl, c.mediumUrl, p.id, " +
+            "c.path, c.depth, c.expiryDays, c.displayOrder, c.isActive, u.fullName, c.createdAt, c.updatedAt) " +
+            "FROM Category c LEFT JOIN c.parent p LEFT JOIN c.createdBy u " +
+            "WHERE c.id IN :ids ORDER BY c.depth")
+    List<CategoryNode> findNodesByIdIn(@Param("ids") List<Long> ids);
+
+    // Keyset page over (display_order, id) backed by idx_categories_active_order
+    @Query("SELECT new com.romen.inventory.dto.CategoryNode(c.id, c.name, c.description, c.imageUrl, c.thumbnailUrl, c.mediumUrl, p.id, " +
+            "c.path, c.depth, c.expiryDays, c.displayOrder, c.isActive, u.fullName, c.createdAt, c.updatedAt) " +
+            "FROM Category c LEFT JOIN c.parent p LEFT JOIN c.createdBy u " +
+            "WHERE c.isActive = true " +
+            "AND (c.displayOrder > :afterOrder OR (c.displayOrder = :afterOrder AND c.id > :afterId)) " +
+            "ORDER BY c.displayOrder, c.id")
+    List<CategoryNode> findActiveNodesAfter(@Param("afterOrder") int afterOrder,
+                                            @Param("afterId") long afterId,
+                                            Pageable pageable);
+
+    long countByIsActiveTrue();
+
+    @Query("SELECT c.displayOrder FROM Category c WHERE c.id = :id")
+    Optional<Integer> findDisplayOrderById(@Param("id") Long id);
+
+    // Row locks taken in id order so concurrent callers cannot deadlock on each other
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM Category c WHERE c.id IN :ids ORDER BY c.id")
+    List<Category> findAllForUpdate(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT c.path FROM Category c WHERE c.id = :id")
+    Optional<String> findPathById(@Param("id") Long id);
+
+    @Query("SELECT COUNT(c) FROM Category c WHERE c.path LIKE CONCAT(:pathPrefix, '%') AND c.path <> :pathPrefix")
+    long countDescendants(@Param("pathPrefix") String pathPrefix);
+
+    /**
+     * Re-roots a whole subtree in one statement: every path under oldPrefix
+     * gets newPrefix instead and its depth shifted by depthDelta.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Category c SET c.path = CONCAT(:newPrefix, SUBSTRING(c.path, LENGTH(:oldPrefix) + 1)), " +
+            "c.depth = c.depth + :depthDelta WHERE c.path LIKE CONCAT(:oldPrefix, '%')")
+    int moveSubtree(@Param("oldPrefix") String oldPrefix,
+                    @Param("newPrefix") String newPrefix,
+                    @Param("depthDelta") int depthDelta);
+
+    // Backfill for rows created before the path column existed, one tree level per call
+    @Modifying
+    @Query("UPDATE Category c SET c.path = CONCAT('/', CAST(c.id AS String), '/'), c.depth = 0 " +
+            "WHERE c.path IS NULL AND c.parent IS NULL")
+    int indexRootPaths();
+
+    @Modifying
+    @Query("UPDATE Category c SET " +
+            "c.path = CONCAT((SELECT p.path FROM Category p WHERE p.id = c.parent.id), CAST(c.id AS String), '/'), " +
+            "c.depth = (SELECT p.depth FROM Category p WHERE p.id = c.parent.id) + 1 " +
+            "WHERE c.path IS NULL AND EXISTS (SELECT p.id FROM Category p WHERE p.id = c.parent.id AND p.path IS NOT NULL)")
+    int indexNextLevelPaths();
+
+    // Only applies while the image the variants were made from is still the current one
+    @Transactional
+    @Modifying
+    @Query("UPDATE Category c SET c.thumbnailUrl = :thumbnailUrl, c.mediumUrl = :mediumUrl " +
+            "WHERE c.id = :id AND c.imageUrl = :imageUrl")
+    int updateImageVariants(@Param("id") Long id,
+                            @Param("imageUrl") String imageUrl,
+                            @Param("thumbnailUrl") String thumbnailUrl,
+                            @Param("mediumUrl") String mediumUrl);
+
+    @Query("SELECT c.id, c.imageUrl FROM Category c WHERE c.imageUrl IS NOT NULL AND c.thumbnailUrl IS NULL")
+    List<Object[]> findImagesMissingVariants(Pageable pageable);
 
     boolean existsByNameAndParentIdAndIdNot(String name, Long parentId, Long id);
 
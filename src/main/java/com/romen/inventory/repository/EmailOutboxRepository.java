@@ -0,0 +1,71 @@
+// repository/EmailOutboxRepository.java
+package com.romen.inventory.repository;
+
+import com.romen.inventory.entity.EmailOutboxMessage;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface EmailOutboxRepository extends JpaRepository<EmailOutboxMessage, Long> {
+
+    // Due messages via idx_email_outbox_due
+    @Query("SELECT m.id FROM EmailOutboxMessage m WHERE m.status = 'PENDING' AND m.nextAttemptAt <= :now " +
+            "ORDER BY m.nextAttemptAt")
+    List<Long> findDueIds(@Param("now") LocalDateTime now, Pageable pageable);
+
+    // Leases the rows to this dispatcher; rows another node claimed first are left out
+    @Modifying
+    @Query("UPDATE EmailOutboxMessage m SET m.nextAttemptAt = :leaseUntil, m.claimToken = :token " +
+            "WHERE m.id IN :ids AND m.status = 'PENDING' AND m.nextAttemptAt <= :now")
+    int claim(@Param("ids") List<Long> ids,
+              @Param("now") LocalDateTime now,
+              @Param("leaseUntil") LocalDateTime leaseUntil,
+              @Param("token") String token);
+
+    List<EmailOutboxMessage> findByIdInAndClaimToken(List<Long> ids, String claimToken);
+
+    // Outcome updates only apply while the batch still holds its lease
+    // Finished rows keep their metadata but drop the body, which may carry an OTP
+    @Modifying
+    @Query("UPDATE EmailOutboxMessage m SET m.status = 'SENT', m.sentAt = :sentAt, m.attempts = m.attempts + 1, " +
+            "m.lastError = null, m.body = '' WHERE m.id IN :ids AND m.claimToken = :token")
+    int markSent(@Param("ids") List<Long> ids,
+                 @Param("token") String token,
+                 @Param("sentAt") LocalDateTime sentAt);
+
+    @Modifying
+    @Query("UPDATE EmailOutboxMessage m SET m.attempts = :attempts, m.lastError = :error, " +
+            "m.nextAttemptAt = :nextAttemptAt WHERE m.id = :id AND m.claimToken = :token")
+    int scheduleRetry(@Param("id") Long id,
+                      @Param("token") String token,
+                      @Param("attempts") int attempts,
+                      @Param("error") String error,
+                      @Param("nextAttemptAt") LocalDateTime nextAttemptAt);
+
+    @Modifying
+    @Query("UPDATE EmailOutboxMessage m SET m.status = 'FAILED', m.attempts = :attempts, m.lastError = :error, " +
+            "m.body = '' WHERE m.id = :id AND m.claimToken = :token")
+    int markFailed(@Param("id") Long id,
+                   @Param("token") String token,
+                   @Param("attempts") int attempts,
+                   @Param("error") String error);
+
+    // Finished rows oldest first along idx_email_outbox_due, one purge chunk at a time
+    @Query("SELECT m.id FROM EmailOutboxMessage m WHERE m.status = :status AND m.nextAttemptAt < :cutoff " +
+            "ORDER BY m.nextAttemptAt")
+    List<Long> findFinishedIds(@Param("status") EmailOutboxMessage.Status status,
+                               @Param("cutoff") LocalDateTime cutoff,
+                               Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM EmailOutboxMessage m WHERE m.id IN :ids")
+    int deleteByIdIn(@Param("ids") List<Long> ids);
+
+    long countByStatus(EmailOutboxMessage.Status status);
+}
@@ -2,30 +2,18 @@
 package com.romen.inventory.repository;
 
 import com.romen.inventory.entity.OtpLog;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.time.LocalDateTime;
-import java.util.Optional;
+import java.util.List;
 
 @Repository
 public interface OtpLogRepository extends JpaRepository<OtpLog, Long> {
 
-    Optional<OtpLog> findByEmailAndOtpAndIsUsedFalseAndExpiresAtAfter(
-            String email, String otp, LocalDateTime now);
-
-    Optional<OtpLog> findByPhoneAndOtpAndIsUsedFalseAndExpiresAtAfter(
-            String phone, String otp, LocalDateTime now);
-
-    @Query("SELECT o FROM OtpLog o WHERE (o.email = :identifier OR o.phone = :identifier) " +
-            "AND o.otp = :otp AND o.isUsed = false AND o.expiresAt > :now")
-    Optional<OtpLog> findValidOtp(
-            @Param("identifier") String identifier,
-            @Param("otp") String otp,
-            @Param("now") LocalDateTime now);
-
     @Query("SELECT COUNT(o) FROM OtpLog o WHERE (o.email = :identifier OR o.phone = :identifier) " +
             "AND o.createdAt > :since")
     Long countRecentOtps(@Param("identifier") String identifier,
@@ -35,7 +23,13 @@ public interface OtpLogRepository extends JpaRepository<OtpLog, Long> {
     @Query("UPDATE OtpLog o SET o.isUsed = true WHERE o.id = :id")
     void markAsUsed(@Param("id") Long id);
 
+    // Equality on otp_type, then a range scan oldest first along idx_otp_logs_expiry, one purge chunk at a time
+    @Query("SELECT o.id FROM OtpLog o WHERE o.otpType = :otpType AND o.expiresAt < :cutoff ORDER BY o.expiresAt")
+    List<Long> findExpiredIds(@Param("otpType") OtpLog.OtpType otpType,
+                              @Param("cutoff") LocalDateTime cutoff,
+                              Pageable pageable);
+
     @Modifying
-    @Query("DELETE FROM OtpLog o WHERE o.expiresAt < :expiryTime")
-    void deleteExpiredOtps(@Param("expiryTime") LocalDateTime expiryTime);
+    @Query("DELETE FROM OtpLog o WHERE o.id IN :ids")
+    int deleteByIdIn(@Param("ids") List<Long> ids);
 }
\ No newline at end of file
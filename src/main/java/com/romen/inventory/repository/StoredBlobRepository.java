@@ -0,0 +1,25 @@
+// repository/StoredBlobRepository.java
+package com.romen.inventory.repository;
+
+import com.romen.inventory.entity.StoredBlob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface StoredBlobRepository extends JpaRepository<StoredBlob, String> {
+
+    @Modifying
+    @Query("UPDATE StoredBlob b SET b.refCount = b.refCount + 1 WHERE b.path = :path")
+    int addReference(@Param("path") String path);
+
+    @Modifying
+    @Query("UPDATE StoredBlob b SET b.refCount = b.refCount - 1 WHERE b.path = :path AND b.refCount > 0")
+    int removeReference(@Param("path") String path);
+
+    @Modifying
+    @Query("DELETE FROM StoredBlob b WHERE b.path = :path AND b.refCount = 0")
+    int deleteIfUnreferenced(@Param("path") String path);
+}
@@ -2,7 +2,9 @@
 package com.romen.inventory.repository;
 
 import com.romen.inventory.entity.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -22,6 +24,26 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     boolean existsByPhone(String phone);
 
+    // Compare-and-set on the stored hash, so a stale upgrade never overwrites a newer password
+    @Modifying
+    @Query("UPDATE User u SET u.password = :password WHERE u.id = :id AND u.password = :oldHash")
+    int updatePassword(@Param("id") Long id,
+                       @Param("oldHash") String oldHash,
+                       @Param("password") String password);
+
+    @Query("SELECT u.id, u.securityVersion FROM User u")
+    java.util.List<Object[]> findAllSecurityVersions();
+
     @Query("SELECT u FROM User u WHERE u.role = 'EMPLOYEE' AND u.isActive = true")
     java.util.List<User> findAllActiveEmployees();
+
+    // Keyset pages: rows after the cursor id, limited by the pageable's size (never an OFFSET)
+    @Query("SELECT u FROM User u WHERE u.id > :after ORDER BY u.id")
+    java.util.List<User> findPageAfter(@Param("after") long after, Pageable pageable);
+
+    @Query("SELECT u FROM User u WHERE u.role = 'EMPLOYEE' AND u.isActive = true AND u.id > :after ORDER BY u.id")
+    java.util.List<User> findActiveEmployeesAfter(@Param("after") long after, Pageable pageable);
+
+    @Query("SELECT COUNT(u) FROM User u WHERE u.role = 'EMPLOYEE' AND u.isActive = true")
+    long countActiveEmployees();
 }
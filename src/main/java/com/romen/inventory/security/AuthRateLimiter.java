@@ -0,0 +1,131 @@
+package com.romen.inventory.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.romen.inventory.exception.RateLimitExceededException;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-endpoint request limits for the unauthenticated auth API, checked before
+ * any password hashing or database work. Each endpoint allows per-ip requests
+ * per period from one client address and per-identifier requests per period
+ * for one email or phone, both as bursts that refill evenly over the period
+ * (app.rate-limit.&lt;endpoint&gt;.*).
+ * <p>
+ * A bucket is a single AtomicLong holding its theoretical arrival time (GCRA),
+ * updated by compare-and-set, so the check never locks. Buckets live in a
+ * size-bounded cache and expire once idle for a full period, by which time
+ * they would be full again anyway.
+ */
+@Component
+public class AuthRateLimiter {
+
+    public enum Endpoint {
+        LOGIN(20, 5, Duration.ofMinutes(1)),
+        REGISTER(10, 3, Duration.ofMinutes(10)),
+        SEND_OTP(10, 3, Duration.ofMinutes(10)),
+        VERIFY_EMAIL(20, 5, Duration.ofMinutes(10)),
+        RESET_PASSWORD(20, 5, Duration.ofMinutes(10));
+
+        private final int defaultPerIp;
+        private final int defaultPerIdentifier;
+        private final Duration defaultPeriod;
+
+        Endpoint(int defaultPerIp, int defaultPerIdentifier, Duration defaultPeriod) {
+            this.defaultPerIp = defaultPerIp;
+            this.defaultPerIdentifier = defaultPerIdentifier;
+            this.defaultPeriod = defaultPeriod;
+        }
+
+        String propertyName() {
+            return name().toLowerCase(Locale.ROOT).replace('_', '-');
+        }
+    }
+
+    private final boolean enabled;
+    private final Map<Endpoint, Limit> ipLimits = new EnumMap<>(Endpoint.class);
+    private final Map<Endpoint, Limit> identifierLimits = new EnumMap<>(Endpoint.class);
+    private final Cache<BucketKey, AtomicLong> buckets;
+    private final MeterRegistry meterRegistry;
+
+    public AuthRateLimiter(
+            Environment environment,
+            MeterRegistry meterRegistry,
+            @Value("${app.rate-limit.enabled:true}") boolean enabled,
+            @Value("${app.rate-limit.maximum-keys:100000}") long maximumKeys) {
+        this.enabled = enabled;
+        this.meterRegistry = meterRegistry;
+        Duration longestPeriod = Duration.ZERO;
+        for (Endpoint endpoint : Endpoint.values()) {
+            String prefix = "app.rate-limit." + endpoint.propertyName() + ".";
+            Duration period = environment.getProperty(prefix + "period", Duration.class, endpoint.defaultPeriod);
+            ipLimits.put(endpoint, new Limit(
+                    environment.getProperty(prefix + "per-ip", Integer.class, endpoint.defaultPerIp), period));
+            identifierLimits.put(endpoint, new Limit(
+                    environment.getProperty(prefix + "per-identifier", Integer.class, endpoint.defaultPerIdentifier), period));
+            if (period.compareTo(longestPeriod) > 0) {
+                longestPeriod = period;
+            }
+        }
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maximumKeys)
+                .expireAfterAccess(longestPeriod)
+                .build();
+    }
+
+    /**
+     * Takes one request from the client's and the identifier's bucket, throwing
+     * when either is empty. The address is checked first so a client that is
+     * already limited cannot drain other people's identifier buckets.
+     */
+    public void check(Endpoint endpoint, String clientIp, String identifier) {
+        if (!enabled) {
+            return;
+        }
+        if (clientIp != null) {
+            acquire(endpoint, "ip", clientIp, ipLimits.get(endpoint));
+        }
+        if (identifier != null && !identifier.isBlank()) {
+            acquire(endpoint, "identifier", identifier.trim().toLowerCase(Locale.ROOT), identifierLimits.get(endpoint));
+        }
+    }
+
+    private void acquire(Endpoint endpoint, String scope, String value, Limit limit) {
+        if (limit.permits() <= 0) {
+            return;
+        }
+        AtomicLong arrival = buckets.get(new BucketKey(endpoint, scope, value), key -> new AtomicLong(Long.MIN_VALUE));
+        long interval = limit.period().toNanos() / limit.permits();
+        long tolerance = interval * (limit.permits() - 1);
+        long now = System.nanoTime();
+        while (true) {
+            long current = arrival.get();
+            long theoretical = current == Long.MIN_VALUE || current - now < 0 ? now : current;
+            long wait = theoretical - now - tolerance;
+            if (wait > 0) {
+                meterRegistry.counter("auth.rate.limited",
+                        "endpoint", endpoint.propertyName(), "scope", scope).increment();
+                throw new RateLimitExceededException("Too many requests, please try again later",
+                        Duration.ofNanos(wait));
+            }
+            if (arrival.compareAndSet(current, theoretical + interval)) {
+                return;
+            }
+        }
+    }
+
+    private record Limit(int permits, Duration period) {
+    }
+
+    private record BucketKey(Endpoint endpoint, String scope, String value) {
+    }
+}
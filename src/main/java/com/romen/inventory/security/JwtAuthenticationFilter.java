@@ -1,14 +1,18 @@
 package com.romen.inventory.security;
 
+import com.romen.inventory.entity.User;
 import com.romen.inventory.service.JwtService;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -19,10 +23,18 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
     private final UserDetailsService userDetailsService;
+    private final UserSecurityVersions securityVersions;
+    private final boolean statelessPrincipal;
 
-    public JwtAuthenticationFilter(JwtService jwtService, UserDetailsService userDetailsService) {
+    public JwtAuthenticationFilter(
+            JwtService jwtService,
+            UserDetailsService userDetailsService,
+            UserSecurityVersions securityVersions,
+            @Value("${app.security.stateless-principal:true}") boolean statelessPrincipal) {
         this.jwtService = jwtService;
         this.userDetailsService = userDetailsService;
+        this.securityVersions = securityVersions;
+        this.statelessPrincipal = statelessPrincipal;
     }
 
     @Override
@@ -33,7 +45,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         final String authHeader = request.getHeader("Authorization");
         final String jwt;
-        final String username;
+        final VerifiedToken token;
 
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
             filterChain.doFilter(request, response);
@@ -41,12 +53,18 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
 
         jwt = authHeader.substring(7);
-        username = jwtService.extractUsername(jwt);
+        try {
+            token = jwtService.verify(jwt);
+        } catch (JwtException | IllegalArgumentException e) {
+            // Invalid or expired token: continue unauthenticated
+            filterChain.doFilter(request, response);
+            return;
+        }
 
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
+        if (token.getSubject() != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+            UserDetails userDetails = resolvePrincipal(token);
 
-            if (jwtService.isTokenValid(jwt, userDetails)) {
+            if (userDetails != null) {
                 UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                         userDetails,
                         null,
@@ -58,4 +76,39 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
         filterChain.doFilter(request, response);
     }
-}
\ No newline at end of file
+
+    /**
+     * Builds the principal straight from the claims when the token is current,
+     * and only falls back to the database for legacy tokens or when the user's
+     * security version has moved on since the token was issued.
+     */
+    private UserDetails resolvePrincipal(VerifiedToken token) {
+        if (statelessPrincipal && token.isSelfContained()
+                && securityVersions.isCurrent(token.getUserId(), token.getSecurityVersion())) {
+            if (!token.getEnabled() || token.getLocked()) {
+                return null;
+            }
+            return token.toPrincipal();
+        }
+
+        UserDetails userDetails;
+        try {
+            userDetails = userDetailsService.loadUserByUsername(token.getSubject());
+        } catch (UsernameNotFoundException e) {
+            return null;
+        }
+
+        if (!jwtService.isTokenValid(token, userDetails)) {
+            return null;
+        }
+
+        if (token.getSecurityVersion() != null && userDetails instanceof User user) {
+            long current = user.currentSecurityVersion();
+            securityVersions.update(user.getId(), current);
+            if (token.getSecurityVersion() != current || !user.isEnabled() || !user.isAccountNonLocked()) {
+                return null;
+            }
+        }
+        return userDetails;
+    }
+}
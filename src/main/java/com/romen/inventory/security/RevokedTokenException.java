@@ -0,0 +1,9 @@
+package com.romen.inventory.security;
+
+import io.jsonwebtoken.JwtException;
+
+public class RevokedTokenException extends JwtException {
+    public RevokedTokenException(String message) {
+        super(message);
+    }
+}
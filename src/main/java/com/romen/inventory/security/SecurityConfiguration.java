@@ -1,5 +1,7 @@
 package com.romen.inventory.security;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -10,8 +12,10 @@ import org.springframework.security.config.annotation.method.configuration.Enabl
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
@@ -22,7 +26,9 @@ import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 import org.springframework.web.servlet.handler.HandlerMappingIntrospector;
 
+import java.time.Duration;
 import java.util.Arrays;
+import java.util.Map;
 
 @Configuration
 @EnableWebSecurity
@@ -50,6 +56,23 @@ public class SecurityConfiguration {
                             new AntPathRequestMatcher("/h2-console/**"),
                             new AntPathRequestMatcher("/error")
                         ).permitAll()
+                        // Image URLs are loaded by <img> tags, which cannot send a bearer token
+                        .requestMatchers(
+                            new AntPathRequestMatcher("/api/files/**", "GET"),
+                            new AntPathRequestMatcher("/api/files/**", "HEAD")
+                        ).permitAll()
+                        // Per-endpoint traffic and pool figures; the scraper authenticates as an admin
+                        .requestMatchers(
+                            new AntPathRequestMatcher("/actuator/prometheus", "GET"),
+                            new AntPathRequestMatcher("/actuator/metrics/**", "GET")
+                        ).hasRole("ADMIN")
+                        // Load balancer probes; details are only shown to authenticated callers
+                        .requestMatchers(
+                            new AntPathRequestMatcher("/actuator/health/**", "GET"),
+                            new AntPathRequestMatcher("/livez", "GET"),
+                            new AntPathRequestMatcher("/readyz", "GET"),
+                            new AntPathRequestMatcher("/api/health", "GET")
+                        ).permitAll()
                         .anyRequest().authenticated()
                 )
                 .sessionManagement(session -> session
@@ -78,11 +101,14 @@ public class SecurityConfiguration {
     @Bean
     public AuthenticationProvider authenticationProvider(
             UserDetailsService userDetailsService,
+            UserDetailsPasswordService userDetailsPasswordService,
             PasswordEncoder passwordEncoder) {
 
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
         authProvider.setUserDetailsService(userDetailsService);
         authProvider.setPasswordEncoder(passwordEncoder);
+        // Re-hashes a password on successful login when its stored format or cost is outdated
+        authProvider.setUserDetailsPasswordService(userDetailsPasswordService);
         return authProvider;
     }
 
@@ -93,7 +119,17 @@ public class SecurityConfiguration {
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(
+            MeterRegistry meterRegistry,
+            @Value("${app.security.password.bcrypt-strength:10}") int bcryptStrength,
+            @Value("${app.security.password.hashing-threads:0}") int hashingThreads,
+            @Value("${app.security.password.queue-capacity:100}") int queueCapacity,
+            @Value("${app.security.password.max-wait:5s}") Duration maxWait) {
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(bcryptStrength);
+        DelegatingPasswordEncoder delegating = new DelegatingPasswordEncoder("bcrypt", Map.of("bcrypt", bcrypt));
+        // Hashes stored before the {id} prefix are plain BCrypt; they are upgraded on next login
+        delegating.setDefaultPasswordEncoderForMatches(bcrypt);
+        int threads = hashingThreads > 0 ? hashingThreads : Runtime.getRuntime().availableProcessors();
+        return new BoundedPasswordEncoder(delegating, threads, queueCapacity, maxWait, meterRegistry);
     }
 }
@@ -0,0 +1,150 @@
+package com.romen.inventory.security;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Revoked token ids (jti) until the moment each token would have expired anyway.
+ * Lookups go through a Bloom filter first, so the common "not revoked" answer
+ * costs a few hash probes and never touches the map or the database.
+ * Revocations are appended to a local log that is replayed at startup.
+ */
+@Component
+@Slf4j
+public class TokenRevocationStore {
+
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+    private final Path logFile;
+    private final int expectedRevocations;
+
+    private volatile BloomFilter bloomFilter;
+    private BufferedWriter writer;
+
+    public TokenRevocationStore(
+            @Value("${app.security.revocation-file:}") String logFile,
+            @Value("${app.security.expected-revocations:100000}") int expectedRevocations) {
+        this.logFile = logFile == null || logFile.isBlank() ? null : Paths.get(logFile);
+        this.expectedRevocations = expectedRevocations;
+        this.bloomFilter = new BloomFilter(expectedRevocations, 0.01);
+    }
+
+    @PostConstruct
+    public synchronized void replay() throws IOException {
+        if (logFile == null) {
+            return;
+        }
+        if (Files.exists(logFile)) {
+            long now = System.currentTimeMillis();
+            for (String line : Files.readAllLines(logFile, StandardCharsets.UTF_8)) {
+                int separator = line.indexOf(',');
+                if (separator <= 0) {
+                    continue;
+                }
+                try {
+                    long expiresAt = Long.parseLong(line.substring(separator + 1).trim());
+                    if (expiresAt > now) {
+                        String tokenId = line.substring(0, separator);
+                        revoked.put(tokenId, expiresAt);
+                        bloomFilter.put(tokenId);
+                    }
+                } catch (NumberFormatException e) {
+                    log.warn("Skipping malformed revocation entry: {}", line);
+                }
+            }
+            log.info("Replayed {} active token revocations from {}", revoked.size(), logFile);
+        }
+        compact();
+    }
+
+    public boolean isRevoked(String tokenId) {
+        if (tokenId == null || !bloomFilter.mightContain(tokenId)) {
+            return false;
+        }
+        Long expiresAt = revoked.get(tokenId);
+        return expiresAt != null && expiresAt > System.currentTimeMillis();
+    }
+
+    public synchronized void revoke(String tokenId, long expiresAtMillis) {
+        if (tokenId == null || expiresAtMillis <= System.currentTimeMillis()) {
+            return;
+        }
+        if (revoked.putIfAbsent(tokenId, expiresAtMillis) != null) {
+            return;
+        }
+        bloomFilter.put(tokenId);
+        if (writer != null) {
+            try {
+                writer.write(tokenId + "," + expiresAtMillis);
+                writer.newLine();
+                writer.flush();
+            } catch (IOException e) {
+                log.error("Failed to persist revocation of token {}", tokenId, e);
+            }
+        }
+    }
+
+    /**
+     * Drops revocations of tokens that have expired on their own, rebuilds the
+     * Bloom filter so it does not saturate, and rewrites the log without them.
+     */
+    @Scheduled(fixedDelayString = "${app.security.revocation-purge-interval-ms:600000}")
+    public synchronized void purgeExpired() throws IOException {
+        long now = System.currentTimeMillis();
+        revoked.values().removeIf(expiresAt -> expiresAt <= now);
+
+        BloomFilter rebuilt = new BloomFilter(Math.max(expectedRevocations, revoked.size() * 2), 0.01);
+        revoked.keySet().forEach(rebuilt::put);
+        bloomFilter = rebuilt;
+
+        compact();
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        if (writer != null) {
+            writer.close();
+            writer = null;
+        }
+    }
+
+    public int size() {
+        return revoked.size();
+    }
+
+    private void compact() throws IOException {
+        if (logFile == null) {
+            return;
+        }
+        close();
+        Path parent = logFile.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+
+        Path temp = logFile.resolveSibling(logFile.getFileName() + ".tmp");
+        List<String> lines = revoked.entrySet().stream()
+                .map(entry -> entry.getKey() + "," + entry.getValue())
+                .toList();
+        Files.write(temp, lines, StandardCharsets.UTF_8);
+        Files.move(temp, logFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        writer = Files.newBufferedWriter(logFile, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+}
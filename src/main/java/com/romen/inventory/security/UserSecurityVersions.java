@@ -0,0 +1,67 @@
+package com.romen.inventory.security;
+
+import com.romen.inventory.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory view of each user's current security version, so the JWT filter
+ * can tell whether a token is stale without a database round trip.
+ * Users that are not in the map are on version 0.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class UserSecurityVersions {
+
+    private final UserRepository userRepository;
+    private final Map<Long, Long> versions = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        for (Object[] row : userRepository.findAllSecurityVersions()) {
+            Long version = (Long) row[1];
+            if (version != null && version > 0) {
+                versions.put((Long) row[0], version);
+            }
+        }
+        log.info("Loaded security versions for {} users", versions.size());
+    }
+
+    public long current(Long userId) {
+        return versions.getOrDefault(userId, 0L);
+    }
+
+    public boolean isCurrent(Long userId, long tokenVersion) {
+        return tokenVersion >= current(userId);
+    }
+
+    public void update(Long userId, long version) {
+        versions.merge(userId, version, Math::max);
+    }
+
+    /**
+     * Publishes the new version once the surrounding transaction commits,
+     * so a rolled-back change never invalidates tokens.
+     */
+    public void updateAfterCommit(Long userId, long version) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            update(userId, version);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                update(userId, version);
+            }
+        });
+    }
+}
@@ -0,0 +1,73 @@
+package com.romen.inventory.security;
+
+import com.romen.inventory.entity.User;
+import io.jsonwebtoken.Claims;
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.Date;
+
+/**
+ * Result of a single signature and expiry check on a JWT.
+ * Everything downstream of the filter reads the claims from here
+ * instead of parsing the token again.
+ */
+@Value
+@Builder
+public class VerifiedToken {
+    String tokenId;
+    String subject;
+    Long userId;
+    String role;
+    String fullName;
+    Boolean enabled;
+    Boolean locked;
+    Long securityVersion;
+    Date issuedAt;
+    Date expiresAt;
+
+    public static VerifiedToken from(Claims claims) {
+        return VerifiedToken.builder()
+                .tokenId(claims.getId())
+                .subject(claims.getSubject())
+                .userId(claims.get("userId", Long.class))
+                .role(claims.get("role", String.class))
+                .fullName(claims.get("name", String.class))
+                .enabled(claims.get("enabled", Boolean.class))
+                .locked(claims.get("locked", Boolean.class))
+                .securityVersion(claims.get("sv", Long.class))
+                .issuedAt(claims.getIssuedAt())
+                .expiresAt(claims.getExpiration())
+                .build();
+    }
+
+    /**
+     * True when the token carries everything needed to authenticate
+     * without loading the user from the database.
+     */
+    public boolean isSelfContained() {
+        return userId != null && role != null && securityVersion != null
+                && enabled != null && locked != null;
+    }
+
+    /**
+     * Builds a detached principal from the claims. Only the fields carried
+     * by the token are populated.
+     */
+    public User toPrincipal() {
+        return User.builder()
+                .id(userId)
+                .email(subject)
+                .fullName(fullName)
+                .role(User.Role.valueOf(role))
+                .isActive(true)
+                .isEmailVerified(Boolean.TRUE.equals(enabled))
+                .otpAttempts(0)
+                .securityVersion(securityVersion)
+                .build();
+    }
+
+    public boolean isExpired() {
+        return expiresAt != null && expiresAt.before(new Date());
+    }
+}
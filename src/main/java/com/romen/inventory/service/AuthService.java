@@ -3,6 +3,8 @@ package com.romen.inventory.service;
 import com.romen.inventory.dto.AuthResponse;
 import com.romen.inventory.dto.LoginRequest;
 import com.romen.inventory.entity.User;
+import com.romen.inventory.security.VerifiedToken;
+import io.jsonwebtoken.JwtException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -54,16 +56,28 @@ public class AuthService {
 
     public AuthResponse refreshToken(String refreshToken) {
         // Validate refresh token
-        String username = jwtService.extractUsername(refreshToken);
+        VerifiedToken verified;
+        try {
+            verified = jwtService.verify(refreshToken);
+        } catch (JwtException | IllegalArgumentException e) {
+            // A blank or non-JWT string is rejected by the parser with IllegalArgumentException
+            throw new IllegalArgumentException("Invalid refresh token");
+        }
 
-        if (username == null) {
+        if (verified.getSubject() == null) {
             throw new IllegalArgumentException("Invalid refresh token");
         }
 
         // Load user
-        User user = (User) userDetailsService.loadUserByUsername(username);
+        User user = (User) userDetailsService.loadUserByUsername(verified.getSubject());
 
-        if (!jwtService.isTokenValid(refreshToken, user)) {
+        if (!jwtService.isTokenValid(verified, user)) {
+            throw new IllegalArgumentException("Invalid refresh token");
+        }
+
+        // Refresh tokens issued before a password or status change are no longer honoured
+        if (verified.getSecurityVersion() != null
+                && verified.getSecurityVersion() != user.currentSecurityVersion()) {
             throw new IllegalArgumentException("Invalid refresh token");
         }
 
@@ -88,32 +102,34 @@ public class AuthService {
     public boolean validateToken(String token) {
         try {
             String jwt = token.replace("Bearer ", "");
-            String username = jwtService.extractUsername(jwt);
+            VerifiedToken verified = jwtService.verify(jwt);
 
-            if (username == null) {
+            if (verified.getSubject() == null) {
                 return false;
             }
 
-            User user = (User) userDetailsService.loadUserByUsername(username);
-            return jwtService.isTokenValid(jwt, user);
+            User user = (User) userDetailsService.loadUserByUsername(verified.getSubject());
+            return jwtService.isTokenValid(verified, user);
         } catch (Exception e) {
             return false;
         }
     }
 
     public Map<String, Object> extractTokenInfo(String token) {
-        String jwt = token.replace("Bearer ", "");
+        VerifiedToken verified = jwtService.verify(token.replace("Bearer ", ""));
 
         Map<String, Object> tokenInfo = new HashMap<>();
-        tokenInfo.put("userId", jwtService.extractUserId(jwt));
-        tokenInfo.put("email", jwtService.extractUsername(jwt));
-        tokenInfo.put("role", jwtService.extractRole(jwt));
+        tokenInfo.put("userId", verified.getUserId());
+        tokenInfo.put("email", verified.getSubject());
+        tokenInfo.put("role", verified.getRole());
 
         return tokenInfo;
     }
 
-    public void logout(String token) {
-        String username = jwtService.extractUsername(token.replace("Bearer ", ""));
-        System.out.println("User logged out: " + username);
+    public void logout(String token, String refreshToken) {
+        jwtService.revoke(token.replace("Bearer ", ""));
+        if (refreshToken != null && !refreshToken.isBlank()) {
+            jwtService.revoke(refreshToken);
+        }
     }
 }
\ No newline at end of file
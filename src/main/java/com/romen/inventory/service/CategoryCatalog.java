@@ -0,0 +1,154 @@
+package com.romen.inventory.service;
+
+import com.romen.inventory.dto.CategoryNode;
+import com.romen.inventory.repository.CategoryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Holds the current {@link CategorySnapshot}. The snapshot is built from one
+ * query at startup and then maintained with copy-on-write deltas published
+ * after each category write commits. A periodic reconcile re-reads the table
+ * and only swaps in a new snapshot if something actually differs.
+ *
+ * The {@link CategorySearchIndex} is fed from the same deltas and rebuilt
+ * whenever the snapshot is reloaded. All mutations (read, swap and index
+ * update) run under one lock, so a reload never overwrites a delta that
+ * committed after its read and the index always moves with the snapshot.
+ * Deltas can arrive out of commit order, so one carrying an older updatedAt
+ * than the cached node, or for a category already removed, is dropped.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CategoryCatalog {
+
+    private final CategoryRepository categoryRepository;
+    private final CategorySearchIndex searchIndex;
+    private final AtomicReference<CategorySnapshot> current = new AtomicReference<>(CategorySnapshot.empty());
+    // Guards every write to current and searchIndex; readers never take it
+    private final ReentrantLock mutationLock = new ReentrantLock();
+    // Ids are never reused, so a late upsert for one of these is always stale
+    private final Set<Long> removedIds = new HashSet<>();
+    private volatile boolean loaded;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        reload();
+        loaded = true;
+    }
+
+    @Scheduled(fixedDelayString = "${app.catalog.reconcile-interval-ms:300000}",
+            initialDelayString = "${app.catalog.reconcile-interval-ms:300000}")
+    public void reconcile() {
+        mutationLock.lock();
+        try {
+            List<CategoryNode> rows = categoryRepository.findAllNodes();
+            Map<Long, CategoryNode> byId = new HashMap<>(rows.size() * 2);
+            rows.forEach(row -> byId.put(row.getId(), row));
+
+            CategorySnapshot snapshot = current.get();
+            boolean unchanged = byId.size() == snapshot.size()
+                    && snapshot.all().stream().allMatch(node -> node.equals(byId.get(node.getId())));
+            if (!unchanged) {
+                log.info("Category snapshot drifted from the database, reloading");
+                current.set(CategorySnapshot.of(snapshot.getVersion() + 1, rows));
+                searchIndex.rebuild(rows);
+            }
+        } finally {
+            mutationLock.unlock();
+        }
+    }
+
+    public void reload() {
+        mutationLock.lock();
+        try {
+            List<CategoryNode> rows = categoryRepository.findAllNodes();
+            CategorySnapshot snapshot = CategorySnapshot.of(current.get().getVersion() + 1, rows);
+            current.set(snapshot);
+            searchIndex.rebuild(rows);
+            log.info("Loaded category snapshot v{} with {} categories", snapshot.getVersion(), snapshot.size());
+        } finally {
+            mutationLock.unlock();
+        }
+    }
+
+    public CategorySnapshot snapshot() {
+        return current.get();
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public void upsertAfterCommit(CategoryNode node) {
+        afterCommit(() -> upsert(node));
+    }
+
+    public void removeAfterCommit(Long id) {
+        afterCommit(() -> remove(id));
+    }
+
+    // For writes that touch many rows at once, such as subtree moves
+    public void reloadAfterCommit() {
+        afterCommit(this::reload);
+    }
+
+    void upsert(CategoryNode node) {
+        mutationLock.lock();
+        try {
+            CategoryNode cached = current.get().get(node.getId());
+            if (removedIds.contains(node.getId()) || isOlder(node, cached)) {
+                log.debug("Dropped stale catalog update for category {}", node.getId());
+                return;
+            }
+            current.set(current.get().withUpsert(node));
+            searchIndex.upsert(node);
+        } finally {
+            mutationLock.unlock();
+        }
+    }
+
+    void remove(Long id) {
+        mutationLock.lock();
+        try {
+            removedIds.add(id);
+            current.set(current.get().withRemoval(id));
+            searchIndex.remove(id);
+        } finally {
+            mutationLock.unlock();
+        }
+    }
+
+    private static boolean isOlder(CategoryNode node, CategoryNode cached) {
+        return cached != null && cached.getUpdatedAt() != null && node.getUpdatedAt() != null
+                && node.getUpdatedAt().isBefore(cached.getUpdatedAt());
+    }
+
+    private void afterCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                change.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,161 @@
+package com.romen.inventory.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.romen.inventory.dto.CategoryExportRow;
+import com.romen.inventory.dto.CategoryNode;
+import com.romen.inventory.entity.Category;
+import com.romen.inventory.repository.CategoryRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+/**
+ * Writes the whole category table as NDJSON or CSV while scanning it, one row
+ * at a time. Only the current row and the output buffer are held in memory;
+ * ancestor names come from the in-memory catalog snapshot.
+ */
+@Service
+@Slf4j
+public class CategoryExportService {
+
+    private static final String[] CSV_HEADER = {"id", "name", "description", "parentId", "parentPath", "depth",
+            "expiryDays", "displayOrder", "isActive", "imageUrl", "createdBy", "createdAt", "updatedAt"};
+
+    private final CategoryRepository categoryRepository;
+    private final CategoryCatalog categoryCatalog;
+    private final ObjectWriter jsonWriter;
+
+    public CategoryExportService(CategoryRepository categoryRepository, CategoryCatalog categoryCatalog,
+                                 ObjectMapper objectMapper) {
+        this.categoryRepository = categoryRepository;
+        this.categoryCatalog = categoryCatalog;
+        this.jsonWriter = objectMapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    public enum Format {
+        NDJSON("ndjson", MediaType.parseMediaType("application/x-ndjson")),
+        CSV("csv", MediaType.parseMediaType("text/csv;charset=UTF-8"));
+
+        private final String extension;
+        private final MediaType mediaType;
+
+        Format(String extension, MediaType mediaType) {
+            this.extension = extension;
+            this.mediaType = mediaType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public MediaType getMediaType() {
+            return mediaType;
+        }
+
+        public static Format parse(String value) {
+            try {
+                return Format.valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unsupported export format: " + value);
+            }
+        }
+    }
+
+    // The read-only transaction, and with it the connection, lasts exactly as long as the scan
+    @Transactional(readOnly = true)
+    public long export(Format format, OutputStream out) throws IOException {
+        CategorySnapshot snapshot = categoryCatalog.snapshot();
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        long count = 0;
+
+        if (format == Format.CSV) {
+            writeCsvRow(writer, (Object[]) CSV_HEADER);
+        }
+        try (Stream<CategoryNode> rows = categoryRepository.streamAllNodes()) {
+            Iterator<CategoryNode> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                CategoryExportRow row = toRow(iterator.next(), snapshot);
+                if (format == Format.CSV) {
+                    writeCsvRow(writer, row.getId(), row.getName(), row.getDescription(), row.getParentId(),
+                            row.getParentPath(), row.getDepth(), row.getExpiryDays(), row.getDisplayOrder(),
+                            row.getIsActive(), row.getImageUrl(), row.getCreatedBy(), row.getCreatedAt(),
+                            row.getUpdatedAt());
+                } else {
+                    jsonWriter.writeValue(writer, row);
+                    writer.write('\n');
+                }
+                count++;
+            }
+        }
+        writer.flush();
+        log.info("Exported {} categories as {}", count, format);
+        return count;
+    }
+
+    private CategoryExportRow toRow(CategoryNode node, CategorySnapshot snapshot) {
+        StringBuilder parentPath = new StringBuilder();
+        for (Long ancestorId : Category.ancestorIds(node.getPath())) {
+            if (parentPath.length() > 0) {
+                parentPath.append(" > ");
+            }
+            String name = snapshot.nameOf(ancestorId);
+            parentPath.append(name != null ? name : ancestorId.toString());
+        }
+        return CategoryExportRow.builder()
+                .id(node.getId())
+                .name(node.getName())
+                .description(node.getDescription())
+                .parentId(node.getParentId())
+                .parentPath(parentPath.length() > 0 ? parentPath.toString() : null)
+                .depth(node.getDepth())
+                .expiryDays(node.getExpiryDays())
+                .displayOrder(node.getDisplayOrder())
+                .isActive(node.getIsActive())
+                .imageUrl(node.getImageUrl())
+                .createdBy(node.getCreatedBy())
+                .createdAt(node.getCreatedAt())
+                .updatedAt(node.getUpdatedAt())
+                .build();
+    }
+
+    private static void writeCsvRow(Writer writer, Object... values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            if (values[i] != null) {
+                writeCsvField(writer, values[i].toString());
+            }
+        }
+        writer.write("\r\n");
+    }
+
+    private static void writeCsvField(Writer writer, String value) throws IOException {
+        // Spreadsheets evaluate cells starting with these as formulas; a leading quote keeps them text
+        if (!value.isEmpty() && "=+-@".indexOf(value.charAt(0)) >= 0) {
+            value = "'" + value;
+        }
+        boolean quote = value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
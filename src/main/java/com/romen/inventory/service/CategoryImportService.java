@@ -0,0 +1,593 @@
+package com.romen.inventory.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.romen.inventory.dto.CategoryImportReport;
+import com.romen.inventory.dto.CategoryImportRow;
+import com.romen.inventory.dto.CategoryNode;
+import com.romen.inventory.entity.Category;
+import com.romen.inventory.entity.User;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Creates many categories in one request. All validation, including name
+ * uniqueness and parent resolution, runs in memory against the catalog
+ * snapshot and the file itself. Rows are then inserted one hierarchy level
+ * at a time in JDBC batches, each chunk in its own transaction, so a bad
+ * chunk fails only its own rows and their descendants. The catalog is
+ * reloaded once at the end.
+ */
+@Service
+@Slf4j
+public class CategoryImportService {
+
+    private static final String PATH_SEPARATOR = " > ";
+    private static final int MAX_NAME_LENGTH = 100;
+
+    private static final String INSERT_SQL = "INSERT INTO categories (name, description, parent_id, depth, " +
+            "expiry_days, display_order, is_active, created_by, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE_PATH_SQL = "UPDATE categories SET path = ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CategoryCatalog categoryCatalog;
+    private final ObjectReader rowReader;
+    private final int batchSize;
+
+    public CategoryImportService(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            CategoryCatalog categoryCatalog,
+            ObjectMapper objectMapper,
+            @Value("${app.catalog.import.batch-size:1000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.categoryCatalog = categoryCatalog;
+        this.rowReader = objectMapper.readerFor(CategoryImportRow.class);
+        this.batchSize = batchSize;
+    }
+
+    public enum Format {
+        CSV,
+        // A JSON array of rows, or one row per line (NDJSON)
+        JSON;
+
+        public static Format of(String contentType, String filename) {
+            String type = contentType != null ? contentType.toLowerCase(Locale.ROOT) : "";
+            String name = filename != null ? filename.toLowerCase(Locale.ROOT) : "";
+            if (type.contains("csv") || name.endsWith(".csv")) {
+                return CSV;
+            }
+            if (type.contains("json") || name.endsWith(".json") || name.endsWith(".ndjson")) {
+                return JSON;
+            }
+            throw new IllegalArgumentException("Unsupported import format, expected CSV or JSON");
+        }
+    }
+
+    public CategoryImportReport importCategories(InputStream in, Format format, User createdBy) throws IOException {
+        long started = System.nanoTime();
+        List<Pending> rows = format == Format.CSV ? readCsv(in) : readJson(in);
+
+        Resolver resolver = new Resolver(categoryCatalog.snapshot(), rows);
+        rows.forEach(resolver::resolve);
+
+        int created = insert(rows, createdBy);
+        if (created > 0) {
+            categoryCatalog.reload();
+        }
+
+        List<CategoryImportReport.RowResult> results = new ArrayList<>(rows.size());
+        for (Pending row : rows) {
+            results.add(CategoryImportReport.RowResult.builder()
+                    .row(row.row)
+                    .name(row.source.getName())
+                    .status(row.error == null ? CategoryImportReport.Status.CREATED : CategoryImportReport.Status.FAILED)
+                    .id(row.id)
+                    .message(row.error)
+                    .build());
+        }
+        long durationMs = (System.nanoTime() - started) / 1_000_000;
+        log.info("Imported {} of {} categories in {} ms", created, rows.size(), durationMs);
+
+        return CategoryImportReport.builder()
+                .total(rows.size())
+                .created(created)
+                .failed(rows.size() - created)
+                .durationMs(durationMs)
+                .rows(results)
+                .build();
+    }
+
+    private int insert(List<Pending> rows, User createdBy) {
+        Map<Integer, List<Pending>> levels = new TreeMap<>();
+        for (Pending row : rows) {
+            if (row.error == null) {
+                levels.computeIfAbsent(row.level, level -> new ArrayList<>()).add(row);
+            }
+        }
+
+        int created = 0;
+        for (List<Pending> level : levels.values()) {
+            List<Pending> ready = new ArrayList<>(level.size());
+            for (Pending row : level) {
+                if (row.parentRow != null && row.parentRow.id == null) {
+                    row.error = "Parent row " + row.parentRow.row + " was not imported";
+                } else {
+                    ready.add(row);
+                }
+            }
+            for (int from = 0; from < ready.size(); from += batchSize) {
+                List<Pending> chunk = ready.subList(from, Math.min(ready.size(), from + batchSize));
+                try {
+                    transactionTemplate.executeWithoutResult(status -> insertChunk(chunk, createdBy));
+                    created += chunk.size();
+                } catch (RuntimeException e) {
+                    String reason = NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+                    log.warn("Category import batch of {} rows failed: {}", chunk.size(), reason);
+                    for (Pending row : chunk) {
+                        row.id = null;
+                        row.path = null;
+                        row.error = "Insert failed: " + reason;
+                    }
+                }
+            }
+        }
+        return created;
+    }
+
+    private void insertChunk(List<Pending> chunk, User createdBy) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement insert = connection.prepareStatement(INSERT_SQL, new String[]{"id"})) {
+                for (Pending row : chunk) {
+                    CategoryImportRow source = row.source;
+                    insert.setString(1, source.getName().trim());
+                    insert.setString(2, source.getDescription());
+                    Long parentId = row.parentId();
+                    if (parentId != null) {
+                        insert.setLong(3, parentId);
+                    } else {
+                        insert.setNull(3, Types.BIGINT);
+                    }
+                    insert.setInt(4, row.depth());
+                    insert.setInt(5, source.getExpiryDays());
+                    insert.setInt(6, source.getDisplayOrder());
+                    insert.setBoolean(7, source.getIsActive());
+                    insert.setLong(8, createdBy.getId());
+                    insert.setTimestamp(9, now);
+                    insert.setTimestamp(10, now);
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+                try (ResultSet keys = insert.getGeneratedKeys()) {
+                    int i = 0;
+                    while (keys.next() && i < chunk.size()) {
+                        chunk.get(i++).id = keys.getLong(1);
+                    }
+                    if (i != chunk.size()) {
+                        throw new IllegalStateException("Expected " + chunk.size() + " generated keys, got " + i);
+                    }
+                }
+            }
+
+            // The path embeds the new id, so it is written by a second batch
+            try (PreparedStatement updatePath = connection.prepareStatement(UPDATE_PATH_SQL)) {
+                for (Pending row : chunk) {
+                    row.path = Category.childPath(row.parentPath(), row.id);
+                    updatePath.setString(1, row.path);
+                    updatePath.setLong(2, row.id);
+                    updatePath.addBatch();
+                }
+                updatePath.executeBatch();
+            }
+            return null;
+        });
+    }
+
+    private List<Pending> readJson(InputStream in) throws IOException {
+        List<Pending> rows = new ArrayList<>();
+        try (MappingIterator<CategoryImportRow> iterator = rowReader.readValues(in)) {
+            while (iterator.hasNextValue()) {
+                rows.add(new Pending(rows.size() + 1, iterator.nextValue()));
+            }
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid JSON import: " + e.getOriginalMessage());
+        }
+        return rows;
+    }
+
+    private List<Pending> readCsv(InputStream in) throws IOException {
+        Reader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 64 * 1024);
+        List<String> header = readCsvRecord(reader);
+        if (header == null) {
+            return new ArrayList<>();
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            String column = header.get(i).replace("\uFEFF", "").trim().toLowerCase(Locale.ROOT);
+            columns.putIfAbsent(column, i);
+        }
+        if (!columns.containsKey("name")) {
+            throw new IllegalArgumentException("CSV header must include a name column");
+        }
+
+        List<Pending> rows = new ArrayList<>();
+        List<String> record;
+        while ((record = readCsvRecord(reader)) != null) {
+            if (record.size() == 1 && record.get(0).isBlank()) {
+                continue;
+            }
+            CategoryImportRow source = new CategoryImportRow();
+            Pending row = new Pending(rows.size() + 1, source);
+            rows.add(row);
+            try {
+                source.setName(cell(record, columns, "name"));
+                source.setDescription(cell(record, columns, "description"));
+                String parentPath = cell(record, columns, "parentpath");
+                source.setParentPath(parentPath != null ? parentPath : cell(record, columns, "parent"));
+                String parentId = cell(record, columns, "parentid");
+                if (parentId != null) {
+                    source.setParentId(Long.valueOf(parentId));
+                }
+                String expiryDays = cell(record, columns, "expirydays");
+                if (expiryDays != null) {
+                    source.setExpiryDays(Integer.valueOf(expiryDays));
+                }
+                String displayOrder = cell(record, columns, "displayorder");
+                if (displayOrder != null) {
+                    source.setDisplayOrder(Integer.valueOf(displayOrder));
+                }
+                String isActive = cell(record, columns, "isactive");
+                if (isActive != null) {
+                    source.setIsActive(parseBoolean(isActive));
+                }
+            } catch (IllegalArgumentException e) {
+                row.error = "Invalid value: " + e.getMessage();
+            }
+        }
+        return rows;
+    }
+
+    private static String cell(List<String> record, Map<String, Integer> columns, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= record.size()) {
+            return null;
+        }
+        String value = record.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static boolean parseBoolean(String value) {
+        switch (value.toLowerCase(Locale.ROOT)) {
+            case "true", "yes", "1":
+                return true;
+            case "false", "no", "0":
+                return false;
+            default:
+                throw new IllegalArgumentException("not a boolean: " + value);
+        }
+    }
+
+    // One RFC 4180 record: quoted fields may contain commas, doubled quotes and line breaks
+    private static List<String> readCsvRecord(Reader reader) throws IOException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean any = false;
+        int c;
+        while ((c = reader.read()) != -1) {
+            any = true;
+            if (quoted) {
+                if (c == '"') {
+                    reader.mark(1);
+                    int next = reader.read();
+                    if (next == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        if (next != -1) {
+                            reader.reset();
+                        }
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n' || c == '\r') {
+                if (c == '\r') {
+                    reader.mark(1);
+                    if (reader.read() != '\n') {
+                        reader.reset();
+                    }
+                }
+                fields.add(field.toString());
+                return fields;
+            } else {
+                field.append((char) c);
+            }
+        }
+        if (!any) {
+            return null;
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private enum State {
+        NEW,
+        RESOLVING,
+        RESOLVED
+    }
+
+    private static final class Pending {
+
+        private final int row;
+        private final CategoryImportRow source;
+        private State state = State.NEW;
+        private String error;
+        // exactly one of these is set for non-root rows
+        private CategoryNode parentNode;
+        private Pending parentRow;
+        private List<String> names;
+        private int level;
+        private Long id;
+        private String path;
+
+        private Pending(int row, CategoryImportRow source) {
+            this.row = row;
+            this.source = source;
+        }
+
+        private Long parentId() {
+            return parentNode != null ? parentNode.getId() : parentRow != null ? parentRow.id : null;
+        }
+
+        private String parentPath() {
+            return parentNode != null ? parentNode.getPath() : parentRow != null ? parentRow.path : null;
+        }
+
+        private int depth() {
+            if (parentNode != null) {
+                return (parentNode.getDepth() != null
+                        ? parentNode.getDepth()
+                        : Category.ancestorIds(parentNode.getPath()).size()) + 1;
+            }
+            return parentRow != null ? parentRow.depth() + 1 : 0;
+        }
+    }
+
+    // A possible parent: an existing category or another row of the same import
+    private record Target(CategoryNode node, Pending row) {
+    }
+
+    private static final class Resolver {
+
+        private final CategorySnapshot snapshot;
+        private final Map<String, List<Target>> byName = new HashMap<>();
+        private final Map<Long, List<String>> existingNames = new HashMap<>();
+        // parent identity + name -> first row claiming it
+        private final Map<String, Pending> siblings = new HashMap<>();
+
+        private Resolver(CategorySnapshot snapshot, List<Pending> rows) {
+            this.snapshot = snapshot;
+            for (CategoryNode node : snapshot.all()) {
+                byName.computeIfAbsent(node.getName(), name -> new ArrayList<>()).add(new Target(node, null));
+            }
+            for (Pending row : rows) {
+                String name = row.source.getName();
+                if (name != null && !name.isBlank()) {
+                    byName.computeIfAbsent(name.trim(), n -> new ArrayList<>()).add(new Target(null, row));
+                }
+            }
+        }
+
+        private void resolve(Pending row) {
+            if (row.state != State.NEW) {
+                return;
+            }
+            row.state = State.RESOLVING;
+            try {
+                if (row.error == null) {
+                    resolveRow(row);
+                }
+            } finally {
+                row.state = State.RESOLVED;
+            }
+        }
+
+        private void resolveRow(Pending row) {
+            CategoryImportRow source = row.source;
+            String name = source.getName() != null ? source.getName().trim() : "";
+            if (name.isEmpty()) {
+                row.error = "Category name is required";
+                return;
+            }
+            if (name.length() > MAX_NAME_LENGTH) {
+                row.error = "Category name must be at most " + MAX_NAME_LENGTH + " characters";
+                return;
+            }
+            if (source.getExpiryDays() == null || source.getExpiryDays() < 0) {
+                row.error = "expiryDays must be zero or more";
+                return;
+            }
+            if (source.getDisplayOrder() == null) {
+                source.setDisplayOrder(0);
+            }
+            if (source.getIsActive() == null) {
+                source.setIsActive(true);
+            }
+
+            Target parent;
+            if (source.getParentId() != null) {
+                CategoryNode node = snapshot.get(source.getParentId());
+                if (node == null) {
+                    row.error = "Parent category not found: " + source.getParentId();
+                    return;
+                }
+                parent = new Target(node, null);
+            } else if (source.getParentPath() == null || source.getParentPath().isBlank()) {
+                parent = null;
+            } else {
+                parent = findParent(row, segments(source.getParentPath()));
+                if (row.error != null) {
+                    return;
+                }
+            }
+
+            List<String> names = new ArrayList<>();
+            if (parent != null && parent.row() != null) {
+                Pending parentRow = parent.row();
+                row.parentRow = parentRow;
+                row.level = parentRow.level + 1;
+                if (parentRow.names != null) {
+                    names.addAll(parentRow.names);
+                }
+            } else if (parent != null) {
+                row.parentNode = parent.node();
+                names.addAll(namesOf(parent.node()));
+            }
+            names.add(name);
+            row.names = names;
+
+            if (row.parentRow != null && row.parentRow.error != null) {
+                row.error = "Parent row " + row.parentRow.row + " was not imported";
+                return;
+            }
+            List<CategoryNode> existingSiblings = row.parentNode != null
+                    ? snapshot.childrenOf(row.parentNode.getId())
+                    : row.parentRow == null ? snapshot.roots() : List.of();
+            for (CategoryNode sibling : existingSiblings) {
+                if (sibling.getName().equals(name)) {
+                    row.error = "Category with this name already exists";
+                    return;
+                }
+            }
+            String siblingKey = (row.parentNode != null ? "c" + row.parentNode.getId()
+                    : row.parentRow != null ? "r" + row.parentRow.row : "root") + "/" + name;
+            Pending first = siblings.putIfAbsent(siblingKey, row);
+            if (first != null) {
+                row.error = "Duplicate of row " + first.row;
+            }
+        }
+
+        // Prefers a unique match of the full path from the root, then a unique match of its tail
+        private Target findParent(Pending row, List<String> segments) {
+            if (segments.isEmpty()) {
+                return null;
+            }
+            List<Target> exact = new ArrayList<>();
+            List<Target> suffix = new ArrayList<>();
+            // rows that would have matched but were rejected themselves
+            List<Target> rejected = new ArrayList<>();
+            for (Target candidate : byName.getOrDefault(segments.get(segments.size() - 1), List.of())) {
+                List<String> names;
+                if (candidate.row() != null) {
+                    Pending other = candidate.row();
+                    if (other == row || other.state == State.RESOLVING) {
+                        continue;
+                    }
+                    resolve(other);
+                    if (other.error != null) {
+                        if (other.names == null ? segments.size() == 1 : endsWith(other.names, segments)) {
+                            rejected.add(candidate);
+                        }
+                        continue;
+                    }
+                    names = other.names;
+                } else {
+                    names = namesOf(candidate.node());
+                }
+                if (endsWith(names, segments)) {
+                    suffix.add(candidate);
+                    if (names.size() == segments.size()) {
+                        exact.add(candidate);
+                    }
+                }
+            }
+
+            String reference = String.join(PATH_SEPARATOR, segments);
+            if (exact.size() == 1) {
+                return exact.get(0);
+            }
+            if (exact.isEmpty() && suffix.size() == 1) {
+                return suffix.get(0);
+            }
+            if (suffix.isEmpty() && !rejected.isEmpty()) {
+                row.error = "Parent row " + rejected.get(0).row().row + " was not imported";
+                return null;
+            }
+            row.error = suffix.isEmpty()
+                    ? "Parent category not found: " + reference
+                    : "Parent reference is ambiguous: " + reference;
+            return null;
+        }
+
+        private List<String> namesOf(CategoryNode node) {
+            return existingNames.computeIfAbsent(node.getId(), id -> {
+                List<String> names = new ArrayList<>();
+                for (Long ancestorId : Category.ancestorIds(node.getPath())) {
+                    String name = snapshot.nameOf(ancestorId);
+                    names.add(name != null ? name : "");
+                }
+                names.add(node.getName());
+                return names;
+            });
+        }
+
+        private static List<String> segments(String parentPath) {
+            List<String> segments = new ArrayList<>();
+            for (String segment : parentPath.split(">")) {
+                if (!segment.isBlank()) {
+                    segments.add(segment.trim());
+                }
+            }
+            return segments;
+        }
+
+        private static boolean endsWith(List<String> names, List<String> segments) {
+            if (names.size() < segments.size()) {
+                return false;
+            }
+            int offset = names.size() - segments.size();
+            for (int i = 0; i < segments.size(); i++) {
+                if (!names.get(offset + i).equals(segments.get(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
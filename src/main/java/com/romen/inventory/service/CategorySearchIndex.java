@@ -0,0 +1,373 @@
+package com.romen.inventory.service;
+
+import com.romen.inventory.dto.CategoryNode;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Predicate;
+
+/**
+ * In-memory full-text index over category names and descriptions.
+ * Each query term is matched as exact word, word prefix, infix (via a
+ * trigram index over the vocabulary) and, for longer terms, within a small
+ * edit distance. All terms must match; hits are ranked by match quality with
+ * name matches weighted above description matches.
+ *
+ * Writes are serialized; reads run concurrently against the live maps.
+ * {@link #rebuild} swaps in a freshly built index in one step.
+ */
+@Component
+public class CategorySearchIndex {
+
+    private static final double EXACT = 10;
+    private static final double PREFIX = 6;
+    private static final double INFIX = 3;
+    private static final double FUZZY = 2;
+    private static final double NAME_BOOST = 3;
+
+    private volatile Index index = new Index();
+
+    public void rebuild(Collection<CategoryNode> nodes) {
+        Index fresh = new Index();
+        nodes.forEach(fresh::put);
+        index = fresh;
+    }
+
+    public void upsert(CategoryNode node) {
+        index.put(node);
+    }
+
+    public void remove(Long id) {
+        index.remove(id);
+    }
+
+    public int size() {
+        return index.docs.size();
+    }
+
+    /**
+     * One page of matching category ids, best match first; ties keep catalog
+     * order (display order, then id). {@code after} is the last id of the
+     * previous page. Only the page itself is sorted, so broad queries over a
+     * large catalog stay cheap.
+     */
+    public Result search(String query, Predicate<CategoryNode> filter, Long after, int limit) {
+        Index current = index;
+        List<Map<String, Double>> termMatches = new ArrayList<>();
+        for (String term : tokenize(query)) {
+            termMatches.add(current.matchTerms(term));
+        }
+        if (termMatches.isEmpty()) {
+            return Result.EMPTY;
+        }
+
+        // Start from the most selective term; the others only need to be checked against its hits
+        termMatches.sort(Comparator.comparingLong(current::postingCount));
+        Map<Long, Double> scores = current.score(termMatches.get(0));
+        for (Map<String, Double> matches : termMatches.subList(1, termMatches.size())) {
+            scores.entrySet().removeIf(entry -> {
+                double weight = current.weight(entry.getKey(), matches);
+                entry.setValue(entry.getValue() + weight);
+                return weight == 0;
+            });
+        }
+
+        List<Hit> hits = new ArrayList<>();
+        for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+            Doc doc = current.docs.get(entry.getKey());
+            if (doc != null && filter.test(doc.node)) {
+                hits.add(new Hit(doc.node, entry.getValue()));
+            }
+        }
+
+        Hit cursor = null;
+        if (after != null) {
+            for (Hit hit : hits) {
+                if (hit.node().getId().equals(after)) {
+                    cursor = hit;
+                    break;
+                }
+            }
+            if (cursor == null) {
+                throw new IllegalArgumentException("Invalid cursor: " + after);
+            }
+        }
+
+        // Bounded max-heap of the best remaining hits after the cursor
+        PriorityQueue<Hit> page = new PriorityQueue<>(limit + 1, RANK.reversed());
+        for (Hit hit : hits) {
+            if (cursor != null && RANK.compare(hit, cursor) <= 0) {
+                continue;
+            }
+            page.add(hit);
+            if (page.size() > limit) {
+                page.poll();
+            }
+        }
+        List<Hit> ordered = new ArrayList<>(page);
+        ordered.sort(RANK);
+        return new Result(ordered.stream().map(hit -> hit.node().getId()).toList(), hits.size());
+    }
+
+    public record Result(List<Long> ids, int total) {
+        static final Result EMPTY = new Result(List.of(), 0);
+    }
+
+    private record Hit(CategoryNode node, double score) {
+    }
+
+    private static final Comparator<Hit> RANK = Comparator.comparingDouble((Hit hit) -> -hit.score())
+            .thenComparing(Hit::node, CategorySnapshot.DISPLAY_ORDER);
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .toLowerCase(Locale.ROOT);
+        for (String token : normalized.split("[^\\p{L}\\p{N}]+")) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private record Doc(CategoryNode node, Set<String> nameTerms, Set<String> allTerms) {
+
+        static Doc of(CategoryNode node) {
+            Set<String> nameTerms = new HashSet<>(tokenize(node.getName()));
+            Set<String> allTerms = new HashSet<>(nameTerms);
+            allTerms.addAll(tokenize(node.getDescription()));
+            return new Doc(node, nameTerms, allTerms);
+        }
+    }
+
+    private static final class Index {
+
+        private final Map<Long, Doc> docs = new ConcurrentHashMap<>();
+        // term -> ids of categories containing it, sorted for prefix scans
+        private final NavigableMap<String, Set<Long>> postings = new ConcurrentSkipListMap<>();
+        // trigram -> vocabulary terms containing it, for infix and typo candidates
+        private final Map<String, Set<String>> trigrams = new ConcurrentHashMap<>();
+
+        synchronized void put(CategoryNode node) {
+            removeInternal(node.getId());
+            Doc doc = Doc.of(node);
+            docs.put(node.getId(), doc);
+            for (String term : doc.allTerms()) {
+                Set<Long> ids = postings.computeIfAbsent(term, t -> {
+                    for (String gram : trigramsOf(t)) {
+                        trigrams.computeIfAbsent(gram, g -> ConcurrentHashMap.newKeySet()).add(t);
+                    }
+                    return ConcurrentHashMap.newKeySet();
+                });
+                ids.add(node.getId());
+            }
+        }
+
+        synchronized void remove(Long id) {
+            removeInternal(id);
+        }
+
+        private void removeInternal(Long id) {
+            Doc previous = docs.remove(id);
+            if (previous == null) {
+                return;
+            }
+            for (String term : previous.allTerms()) {
+                Set<Long> ids = postings.get(term);
+                if (ids == null) {
+                    continue;
+                }
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    postings.remove(term);
+                    for (String gram : trigramsOf(term)) {
+                        Set<String> terms = trigrams.get(gram);
+                        if (terms != null) {
+                            terms.remove(term);
+                            if (terms.isEmpty()) {
+                                trigrams.remove(gram);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        // Vocabulary terms matching one query term, with the weight of the match
+        Map<String, Double> matchTerms(String queryTerm) {
+            Map<String, Double> matchedTerms = new HashMap<>();
+
+            // exact and prefix
+            for (String term : postings.subMap(queryTerm, true, queryTerm + Character.MAX_VALUE, false).keySet()) {
+                matchedTerms.merge(term, term.equals(queryTerm) ? EXACT : PREFIX, Math::max);
+            }
+
+            // infix: vocabulary terms containing every trigram of the query term
+            if (queryTerm.length() >= 3) {
+                for (String term : termsWithAllTrigrams(queryTerm)) {
+                    if (term.contains(queryTerm)) {
+                        matchedTerms.merge(term, INFIX, Math::max);
+                    }
+                }
+            }
+
+            // typo tolerance: one edit for short terms, two for long ones
+            if (queryTerm.length() >= 4) {
+                int maxEdits = queryTerm.length() <= 6 ? 1 : 2;
+                for (String term : termsSharingTrigrams(queryTerm)) {
+                    if (!matchedTerms.containsKey(term)
+                            && Math.abs(term.length() - queryTerm.length()) <= maxEdits
+                            && editDistance(queryTerm, term, maxEdits) <= maxEdits) {
+                        matchedTerms.put(term, FUZZY);
+                    }
+                }
+            }
+
+            return matchedTerms;
+        }
+
+        long postingCount(Map<String, Double> matchedTerms) {
+            long count = 0;
+            for (String term : matchedTerms.keySet()) {
+                Set<Long> ids = postings.get(term);
+                count += ids != null ? ids.size() : 0;
+            }
+            return count;
+        }
+
+        Map<Long, Double> score(Map<String, Double> matchedTerms) {
+            Map<Long, Double> scores = new HashMap<>();
+            for (Map.Entry<String, Double> match : matchedTerms.entrySet()) {
+                Set<Long> ids = postings.get(match.getKey());
+                if (ids == null) {
+                    continue;
+                }
+                for (Long id : ids) {
+                    Doc doc = docs.get(id);
+                    if (doc == null) {
+                        continue;
+                    }
+                    scores.merge(id, weight(doc, match.getKey(), match.getValue()), Math::max);
+                }
+            }
+            return scores;
+        }
+
+        // Best weight any of the document's own terms gets from the matches, 0 if none match
+        double weight(Long id, Map<String, Double> matchedTerms) {
+            Doc doc = docs.get(id);
+            if (doc == null) {
+                return 0;
+            }
+            double best = 0;
+            for (String term : doc.allTerms()) {
+                Double matched = matchedTerms.get(term);
+                if (matched != null) {
+                    best = Math.max(best, weight(doc, term, matched));
+                }
+            }
+            return best;
+        }
+
+        private static double weight(Doc doc, String term, double matchWeight) {
+            return doc.nameTerms().contains(term) ? matchWeight * NAME_BOOST : matchWeight;
+        }
+
+        private Set<String> termsWithAllTrigrams(String queryTerm) {
+            Set<String> result = null;
+            for (String gram : trigramsOf(queryTerm)) {
+                Set<String> terms = trigrams.get(gram);
+                if (terms == null) {
+                    return Set.of();
+                }
+                if (result == null) {
+                    result = new HashSet<>(terms);
+                } else {
+                    result.retainAll(terms);
+                }
+                if (result.isEmpty()) {
+                    return result;
+                }
+            }
+            return result != null ? result : Set.of();
+        }
+
+        private Set<String> termsSharingTrigrams(String queryTerm) {
+            Set<String> grams = trigramsOf(queryTerm);
+            Map<String, Integer> overlap = new HashMap<>();
+            for (String gram : grams) {
+                Set<String> terms = trigrams.get(gram);
+                if (terms != null) {
+                    terms.forEach(term -> overlap.merge(term, 1, Integer::sum));
+                }
+            }
+            // each edit destroys at most three trigrams
+            int required = Math.max(1, grams.size() - 3 * (queryTerm.length() <= 6 ? 1 : 2));
+            Set<String> candidates = new HashSet<>();
+            overlap.forEach((term, shared) -> {
+                if (shared >= required) {
+                    candidates.add(term);
+                }
+            });
+            return candidates;
+        }
+    }
+
+    private static Set<String> trigramsOf(String term) {
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + 3 <= term.length(); i++) {
+            grams.add(term.substring(i, i + 3));
+        }
+        return grams;
+    }
+
+    // Optimal string alignment distance with an early exit once maxEdits is exceeded
+    private static int editDistance(String a, String b, int maxEdits) {
+        int[] previousPrevious = new int[b.length() + 1];
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    value = Math.min(value, previousPrevious[j - 2] + 1);
+                }
+                current[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin > maxEdits) {
+                return rowMin;
+            }
+            int[] recycled = previousPrevious;
+            previousPrevious = previous;
+            previous = current;
+            current = recycled;
+        }
+        return previous[b.length()];
+    }
+}
@@ -1,20 +1,33 @@
 // service/CategoryService.java
 package com.romen.inventory.service;
 
+import com.romen.inventory.dto.CategoryNode;
 import com.romen.inventory.dto.CategoryRequest;
 import com.romen.inventory.dto.CategoryResponse;
 import com.romen.inventory.dto.CategoryTreeResponse;
+import com.romen.inventory.dto.CursorPage;
 import com.romen.inventory.entity.Category;
 import com.romen.inventory.entity.User;
 import com.romen.inventory.exception.ResourceNotFoundException;
 import com.romen.inventory.repository.CategoryRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.io.IOException;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.stream.Collectors;
 
 @Service
@@ -24,6 +37,9 @@ public class CategoryService {
 
     private final CategoryRepository categoryRepository;
     private final FileStorageService fileStorageService;
+    private final CategoryCatalog categoryCatalog;
+    private final CategorySearchIndex categorySearchIndex;
+    private final ImageVariantService imageVariantService;
 
     @Transactional
     public CategoryResponse createCategory(CategoryRequest request, User createdBy) {
@@ -63,44 +79,115 @@ public class CategoryService {
                 .build();
 
         category = categoryRepository.save(category);
-        return mapToCategoryResponse(category);
+
+        // The path needs the generated id, so it is set right after the insert
+        category.setPath(Category.childPath(parent != null ? parent.getPath() : null, category.getId()));
+        category.setDepth(parent != null ? parent.getDepth() + 1 : 0);
+        // Flushed so the cached node carries the timestamps Hibernate fills in on write
+        category = categoryRepository.saveAndFlush(category);
+
+        categoryCatalog.upsertAfterCommit(CategoryNode.from(category));
+        if (imageUrl != null) {
+            imageVariantService.generateAfterCommit(category.getId(), imageUrl);
+        }
+        return getCategoryById(category.getId());
     }
 
+    // Two statements: the node's path, then its subtree and parent via the path index
     public CategoryResponse getCategoryById(Long id) {
-        Category category = categoryRepository.findById(id)
+        String path = categoryRepository.findPathById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Category not found with id: " + id));
+        List<Long> ancestors = Category.ancestorIds(path);
+        Long parentId = ancestors.isEmpty() ? null : ancestors.get(ancestors.size() - 1);
+
+        CategorySnapshot hierarchy = CategorySnapshot.of(0, categoryRepository.findSubtreeNodes(path, parentId));
+        return mapToCategoryResponse(hierarchy.get(id), hierarchy);
+    }
+
+    // Root first, excluding the category itself
+    public List<CategoryResponse> getAncestors(Long id) {
+        String path = categoryRepository.findPathById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Category not found with id: " + id));
-        return mapToCategoryResponse(category);
+        List<Long> ancestorIds = Category.ancestorIds(path);
+        if (ancestorIds.isEmpty()) {
+            return List.of();
+        }
+
+        CategorySnapshot hierarchy = CategorySnapshot.of(0, categoryRepository.findNodesByIdIn(ancestorIds));
+        return ancestorIds.stream()
+                .map(hierarchy::get)
+                .map(node -> mapToFlatResponse(node, hierarchy))
+                .collect(Collectors.toList());
     }
 
-    public List<CategoryResponse> getAllCategories() {
-        return categoryRepository.findAllActiveOrdered().stream()
-                .map(this::mapToCategoryResponse)
+    // Whole subtree below the category, ordered by depth, then display order
+    public List<CategoryResponse> getDescendants(Long id) {
+        String path = categoryRepository.findPathById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Category not found with id: " + id));
+
+        CategorySnapshot hierarchy = CategorySnapshot.of(0, categoryRepository.findSubtreeNodes(path, null));
+        return hierarchy.all().stream()
+                .filter(node -> !node.getId().equals(id))
+                .sorted(Comparator.comparing(CategoryNode::getDepth).thenComparing(CategorySnapshot.DISPLAY_ORDER))
+                .map(node -> mapToFlatResponse(node, hierarchy))
                 .collect(Collectors.toList());
     }
 
+    public long countDescendants(Long id) {
+        String path = categoryRepository.findPathById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Category not found with id: " + id));
+        return categoryRepository.countDescendants(path);
+    }
+
+    /**
+     * Keyset page of active categories ordered by (display_order, id). Items are
+     * flat; the hierarchy is available from /tree, /{id} and /{id}/descendants.
+     */
+    public CursorPage<CategoryResponse> getAllCategories(Long after, Integer limit, boolean includeTotal) {
+        int pageSize = CursorPage.clampLimit(limit);
+        int afterOrder = after != null ? displayOrderOfCursor(after) : Integer.MIN_VALUE;
+        long afterId = after != null ? after : 0L;
+
+        List<CategoryNode> rows = categoryRepository.findActiveNodesAfter(
+                afterOrder, afterId, PageRequest.of(0, pageSize + 1));
+        Long total = includeTotal ? categoryRepository.countByIsActiveTrue() : null;
+
+        CategorySnapshot snapshot = categoryCatalog.snapshot();
+        return CursorPage.of(rows, pageSize, CategoryNode::getId, total)
+                .map(node -> mapToFlatResponse(node, snapshot));
+    }
+
+    // Served from the in-memory snapshot
     public List<CategoryResponse> getMainCategories() {
-        return categoryRepository.findActiveMainCategories().stream()
-                .map(this::mapToCategoryResponse)
+        CategorySnapshot snapshot = categoryCatalog.snapshot();
+        return snapshot.roots().stream()
+                .filter(CategoryNode::isActiveNode)
+                .map(node -> mapToCategoryResponse(node, snapshot))
                 .collect(Collectors.toList());
     }
 
+    // Served from the in-memory snapshot
     public List<CategoryResponse> getSubcategories(Long parentId) {
-        return categoryRepository.findByParentIdAndIsActiveTrue(parentId).stream()
-                .map(this::mapToCategoryResponse)
+        CategorySnapshot snapshot = categoryCatalog.snapshot();
+        return snapshot.childrenOf(parentId).stream()
+                .filter(CategoryNode::isActiveNode)
+                .map(node -> mapToCategoryResponse(node, snapshot))
                 .collect(Collectors.toList());
     }
 
+    // Served from the in-memory snapshot; inactive branches are left out
     public List<CategoryTreeResponse> getCategoryTree() {
-        List<Category> mainCategories = categoryRepository.findActiveMainCategories();
-        return mainCategories.stream()
-                .map(this::mapToCategoryTreeResponse)
+        CategorySnapshot snapshot = categoryCatalog.snapshot();
+        return snapshot.roots().stream()
+                .filter(CategoryNode::isActiveNode)
+                .map(node -> mapToCategoryTreeResponse(node, snapshot))
                 .collect(Collectors.toList());
     }
 
     @Transactional
     public CategoryResponse updateCategory(Long id, CategoryRequest request) {
-        Category category = categoryRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Category not found with id: " + id));
+        Map<Long, Category> locked = lockForUpdate(id, request.getParentId());
+        Category category = locked.get(id);
 
         // Check if category name already exists (excluding current category)
         if (categoryRepository.existsByNameAndParentIdAndIdNot(
@@ -110,14 +197,20 @@ public class CategoryService {
             throw new IllegalArgumentException("Category with this name already exists");
         }
 
+        Long oldParentId = category.getParent() != null ? category.getParent().getId() : null;
+        boolean moved = !Objects.equals(oldParentId, request.getParentId());
+
         Category parent = null;
         if (request.getParentId() != null) {
-            parent = categoryRepository.findById(request.getParentId())
-                    .orElseThrow(() -> new ResourceNotFoundException("Parent category not found"));
+            parent = locked.get(request.getParentId());
             // Prevent circular reference
             if (parent.getId().equals(id)) {
                 throw new IllegalArgumentException("Category cannot be its own parent");
             }
+            // Any deeper cycle means the new parent sits inside this category's subtree
+            if (parent.getPath() != null && parent.getPath().startsWith(category.getPath())) {
+                throw new IllegalArgumentException("Category cannot be moved under one of its own subcategories");
+            }
         }
 
         // Handle image upload if new image provided
@@ -127,9 +220,13 @@ public class CategoryService {
                 if (category.getImageUrl() != null) {
                     fileStorageService.deleteFile(category.getImageUrl());
                 }
+                imageVariantService.deleteVariants(category.getThumbnailUrl(), category.getMediumUrl());
+                category.setThumbnailUrl(null);
+                category.setMediumUrl(null);
                 // Upload new image
                 String imageUrl = fileStorageService.storeFile(request.getImage(), "categories");
                 category.setImageUrl(imageUrl);
+                imageVariantService.generateAfterCommit(id, imageUrl);
             } catch (IOException e) {
                 log.error("Failed to update category image", e);
                 throw new RuntimeException("Failed to update image");
@@ -143,8 +240,51 @@ public class CategoryService {
         category.setDisplayOrder(request.getDisplayOrder());
         category.setIsActive(request.getIsActive());
 
-        category = categoryRepository.save(category);
-        return mapToCategoryResponse(category);
+        category = categoryRepository.saveAndFlush(category);
+        if (moved) {
+            // Re-root the whole subtree in one set-based statement
+            String oldPrefix = category.getPath();
+            String newPrefix = Category.childPath(parent != null ? parent.getPath() : null, id);
+            int depthDelta = (parent != null ? parent.getDepth() + 1 : 0) - category.getDepth();
+            categoryRepository.moveSubtree(oldPrefix, newPrefix, depthDelta);
+            categoryCatalog.reloadAfterCommit();
+        } else {
+            categoryCatalog.upsertAfterCommit(CategoryNode.from(category));
+        }
+        return getCategoryById(id);
+    }
+
+    /**
+     * Loads the category, the requested parent and every ancestor of that parent
+     * under a write lock, in id order. Two moves that could together close a loop
+     * always share at least one of these rows, so the second one waits and then
+     * runs its cycle check against the first one's committed paths.
+     */
+    private Map<Long, Category> lockForUpdate(Long id, Long parentId) {
+        while (true) {
+            Set<Long> ids = new TreeSet<>();
+            ids.add(id);
+            if (parentId != null) {
+                String parentPath = categoryRepository.findPathById(parentId)
+                        .orElseThrow(() -> new ResourceNotFoundException("Parent category not found"));
+                ids.add(parentId);
+                ids.addAll(Category.ancestorIds(parentPath));
+            }
+
+            Map<Long, Category> locked = categoryRepository.findAllForUpdate(ids).stream()
+                    .collect(Collectors.toMap(Category::getId, c -> c));
+            if (!locked.containsKey(id)) {
+                throw new ResourceNotFoundException("Category not found with id: " + id);
+            }
+            if (parentId == null) {
+                return locked;
+            }
+            Category parent = locked.get(parentId);
+            // The parent was deleted or moved between reading its path and locking it
+            if (parent != null && locked.keySet().containsAll(Category.ancestorIds(parent.getPath()))) {
+                return locked;
+            }
+        }
     }
 
     @Transactional
@@ -162,8 +302,10 @@ public class CategoryService {
         if (category.getImageUrl() != null) {
             fileStorageService.deleteFile(category.getImageUrl());
         }
+        imageVariantService.deleteVariants(category.getThumbnailUrl(), category.getMediumUrl());
 
         categoryRepository.delete(category);
+        categoryCatalog.removeAfterCommit(id);
     }
 
     @Transactional
@@ -172,48 +314,139 @@ public class CategoryService {
                 .orElseThrow(() -> new ResourceNotFoundException("Category not found with id: " + id));
 
         category.setIsActive(isActive);
-        category = categoryRepository.save(category);
+        category = categoryRepository.saveAndFlush(category);
+        categoryCatalog.upsertAfterCommit(CategoryNode.from(category));
 
-        return mapToCategoryResponse(category);
+        return getCategoryById(category.getId());
     }
 
-    public List<CategoryResponse> searchCategories(String keyword) {
-        return categoryRepository.searchActiveCategories(keyword).stream()
-                .map(this::mapToCategoryResponse)
-                .collect(Collectors.toList());
+    /**
+     * Ranked search over the in-memory index. The cursor is the id of the last
+     * item on the previous page; ranking is stable for a given catalog state.
+     */
+    public CursorPage<CategoryResponse> searchCategories(String keyword, Long parentId, Long after,
+                                                         Integer limit, boolean includeTotal) {
+        int pageSize = CursorPage.clampLimit(limit);
+        CategorySnapshot snapshot = categoryCatalog.snapshot();
+
+        String scopePath;
+        if (parentId != null) {
+            CategoryNode parent = snapshot.get(parentId);
+            if (parent == null) {
+                throw new ResourceNotFoundException("Category not found with id: " + parentId);
+            }
+            scopePath = parent.getPath();
+        } else {
+            scopePath = null;
+        }
+
+        CategorySearchIndex.Result result = categorySearchIndex.search(keyword, node -> node.isActiveNode()
+                && (scopePath == null || (node.getPath() != null
+                        && node.getPath().startsWith(scopePath) && !node.getId().equals(parentId))),
+                after, pageSize + 1);
+
+        List<CategoryNode> rows = result.ids().stream()
+                .map(snapshot::get)
+                .filter(Objects::nonNull)
+                .toList();
+        Long total = includeTotal ? (long) result.total() : null;
+
+        return CursorPage.of(rows, pageSize, CategoryNode::getId, total)
+                .map(node -> mapToFlatResponse(node, snapshot));
+    }
+
+    private int displayOrderOfCursor(Long after) {
+        return categoryRepository.findDisplayOrderById(after)
+                .orElseThrow(() -> new IllegalArgumentException("Invalid cursor: " + after));
     }
 
-    private CategoryResponse mapToCategoryResponse(Category category) {
+    /**
+     * Fills in the path column for rows that predate it, one tree level per
+     * statement, before the catalog snapshot is loaded.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @Transactional
+    public void indexMissingPaths() {
+        int indexed = categoryRepository.indexRootPaths();
+        int level;
+        while ((level = categoryRepository.indexNextLevelPaths()) > 0) {
+            indexed += level;
+        }
+        if (indexed > 0) {
+            log.info("Indexed hierarchy paths for {} categories", indexed);
+        }
+    }
+
+    private CategoryResponse mapToCategoryResponse(CategoryNode node, CategorySnapshot snapshot) {
+        return mapToCategoryResponse(node, snapshot, new HashMap<>());
+    }
+
+    private CategoryResponse mapToFlatResponse(CategoryNode node, CategorySnapshot snapshot) {
         return CategoryResponse.builder()
-                .id(category.getId())
-                .name(category.getName())
-                .description(category.getDescription())
-                .imageUrl(category.getImageUrl())
-                .parentId(category.getParent() != null ? category.getParent().getId() : null)
-                .parentName(category.getParent() != null ? category.getParent().getName() : null)
-                .expiryDays(category.getExpiryDays())
-                .displayOrder(category.getDisplayOrder())
-                .isActive(category.getIsActive())
-                .createdBy(category.getCreatedBy() != null ? category.getCreatedBy().getFullName() : null)
-                .createdAt(category.getCreatedAt())
-                .updatedAt(category.getUpdatedAt())
-                .subCategories(category.getSubCategories() != null ?
-                        category.getSubCategories().stream()
-                                .map(this::mapToCategoryResponse)
-                                .collect(Collectors.toList()) : null)
+                .id(node.getId())
+                .name(node.getName())
+                .description(node.getDescription())
+                .imageUrl(node.getImageUrl())
+                .thumbnailUrl(node.getThumbnailUrl())
+                .mediumUrl(node.getMediumUrl())
+                .parentId(node.getParentId())
+                .parentName(snapshot.nameOf(node.getParentId()))
+                .depth(node.getDepth())
+                .expiryDays(node.getExpiryDays())
+                .displayOrder(node.getDisplayOrder())
+                .isActive(node.getIsActive())
+                .createdBy(node.getCreatedBy())
+                .createdAt(node.getCreatedAt())
+                .updatedAt(node.getUpdatedAt())
                 .build();
     }
 
-    private CategoryTreeResponse mapToCategoryTreeResponse(Category category) {
-        List<CategoryTreeResponse> children = category.getSubCategories() != null ?
-                category.getSubCategories().stream()
-                        .map(this::mapToCategoryTreeResponse)
-                        .collect(Collectors.toList()) : null;
+    private CategoryResponse mapToCategoryResponse(CategoryNode node, CategorySnapshot snapshot,
+                                                   Map<Long, CategoryResponse> assembled) {
+        CategoryResponse existing = assembled.get(node.getId());
+        if (existing != null) {
+            return existing;
+        }
+
+        List<CategoryResponse> subCategories = snapshot.childrenOf(node.getId()).stream()
+                .map(child -> mapToCategoryResponse(child, snapshot, assembled))
+                .collect(Collectors.toList());
+
+        CategoryResponse response = CategoryResponse.builder()
+                .id(node.getId())
+                .name(node.getName())
+                .description(node.getDescription())
+                .imageUrl(node.getImageUrl())
+                .thumbnailUrl(node.getThumbnailUrl())
+                .mediumUrl(node.getMediumUrl())
+                .parentId(node.getParentId())
+                .parentName(snapshot.nameOf(node.getParentId()))
+                .depth(node.getDepth())
+                .expiryDays(node.getExpiryDays())
+                .displayOrder(node.getDisplayOrder())
+                .isActive(node.getIsActive())
+                .createdBy(node.getCreatedBy())
+                .createdAt(node.getCreatedAt())
+                .updatedAt(node.getUpdatedAt())
+                .subCategories(subCategories)
+                .build();
+        assembled.put(node.getId(), response);
+        return response;
+    }
+
+    private CategoryTreeResponse mapToCategoryTreeResponse(CategoryNode node, CategorySnapshot snapshot) {
+        List<CategoryTreeResponse> children = snapshot.childrenOf(node.getId()).stream()
+                .filter(CategoryNode::isActiveNode)
+                .map(child -> mapToCategoryTreeResponse(child, snapshot))
+                .collect(Collectors.toList());
 
         return CategoryTreeResponse.builder()
-                .id(category.getId())
-                .name(category.getName())
-                .imageUrl(category.getImageUrl())
+                .id(node.getId())
+                .name(node.getName())
+                .imageUrl(node.getImageUrl())
+                .thumbnailUrl(node.getThumbnailUrl())
+                .mediumUrl(node.getMediumUrl())
                 .children(children)
                 .build();
     }
@@ -0,0 +1,152 @@
+package com.romen.inventory.service;
+
+import com.romen.inventory.dto.CategoryNode;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Immutable, versioned copy of the whole category hierarchy. Writers derive a
+ * new snapshot with {@link #withUpsert} / {@link #withRemoval}; readers never lock.
+ */
+public final class CategorySnapshot {
+
+    static final Comparator<CategoryNode> DISPLAY_ORDER =
+            Comparator.comparingInt(CategoryNode::sortOrder).thenComparing(CategoryNode::getId);
+
+    private static final Long ROOT = -1L;
+
+    private final long version;
+    private final Instant lastModified;
+    private final Map<Long, CategoryNode> nodes;
+    // parent id (ROOT for top level) -> children sorted by display order, then id
+    private final Map<Long, List<CategoryNode>> children;
+
+    private CategorySnapshot(long version, Instant lastModified,
+                             Map<Long, CategoryNode> nodes, Map<Long, List<CategoryNode>> children) {
+        this.version = version;
+        this.lastModified = lastModified;
+        this.nodes = nodes;
+        this.children = children;
+    }
+
+    public static CategorySnapshot empty() {
+        return new CategorySnapshot(0, Instant.now(), Map.of(), Map.of());
+    }
+
+    public static CategorySnapshot of(long version, Collection<CategoryNode> rows) {
+        Map<Long, CategoryNode> nodes = new HashMap<>(rows.size() * 2);
+        Map<Long, List<CategoryNode>> children = new HashMap<>();
+        for (CategoryNode node : rows) {
+            nodes.put(node.getId(), node);
+            children.computeIfAbsent(parentKey(node.getParentId()), k -> new ArrayList<>()).add(node);
+        }
+        children.replaceAll((parent, list) -> sorted(list));
+        return new CategorySnapshot(version, Instant.now(),
+                Collections.unmodifiableMap(nodes), Collections.unmodifiableMap(children));
+    }
+
+    public CategorySnapshot withUpsert(CategoryNode node) {
+        CategoryNode previous = nodes.get(node.getId());
+
+        Map<Long, CategoryNode> newNodes = new HashMap<>(nodes);
+        newNodes.put(node.getId(), node);
+
+        Map<Long, List<CategoryNode>> newChildren = new HashMap<>(children);
+        if (previous != null) {
+            removeChild(newChildren, previous);
+        }
+        List<CategoryNode> siblings = new ArrayList<>(newChildren.getOrDefault(parentKey(node.getParentId()), List.of()));
+        siblings.add(node);
+        newChildren.put(parentKey(node.getParentId()), sorted(siblings));
+
+        return new CategorySnapshot(version + 1, Instant.now(),
+                Collections.unmodifiableMap(newNodes), Collections.unmodifiableMap(newChildren));
+    }
+
+    public CategorySnapshot withRemoval(Long id) {
+        CategoryNode previous = nodes.get(id);
+        if (previous == null) {
+            return this;
+        }
+
+        Map<Long, CategoryNode> newNodes = new HashMap<>(nodes);
+        newNodes.remove(id);
+
+        Map<Long, List<CategoryNode>> newChildren = new HashMap<>(children);
+        removeChild(newChildren, previous);
+        newChildren.remove(id);
+
+        return new CategorySnapshot(version + 1, Instant.now(),
+                Collections.unmodifiableMap(newNodes), Collections.unmodifiableMap(newChildren));
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public Instant getLastModified() {
+        return lastModified;
+    }
+
+    public int size() {
+        return nodes.size();
+    }
+
+    public CategoryNode get(Long id) {
+        return nodes.get(id);
+    }
+
+    public Collection<CategoryNode> all() {
+        return nodes.values();
+    }
+
+    public List<CategoryNode> roots() {
+        return children.getOrDefault(ROOT, List.of());
+    }
+
+    public List<CategoryNode> childrenOf(Long parentId) {
+        return children.getOrDefault(parentKey(parentId), List.of());
+    }
+
+    public String nameOf(Long id) {
+        CategoryNode node = id != null ? nodes.get(id) : null;
+        return node != null ? node.getName() : null;
+    }
+
+    private static void removeChild(Map<Long, List<CategoryNode>> children, CategoryNode node) {
+        Long key = parentKey(node.getParentId());
+        List<CategoryNode> siblings = children.get(key);
+        if (siblings == null) {
+            return;
+        }
+        List<CategoryNode> remaining = new ArrayList<>(siblings.size());
+        for (CategoryNode sibling : siblings) {
+            if (!Objects.equals(sibling.getId(), node.getId())) {
+                remaining.add(sibling);
+            }
+        }
+        if (remaining.isEmpty()) {
+            children.remove(key);
+        } else {
+            children.put(key, List.copyOf(remaining));
+        }
+    }
+
+    private static List<CategoryNode> sorted(List<CategoryNode> nodes) {
+        List<CategoryNode> copy = new ArrayList<>(nodes);
+        copy.sort(DISPLAY_ORDER);
+        return List.copyOf(copy);
+    }
+
+    private static Long parentKey(Long parentId) {
+        return parentId != null ? parentId : ROOT;
+    }
+}
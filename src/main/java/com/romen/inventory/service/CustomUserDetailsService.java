@@ -1,24 +1,104 @@
 package com.romen.inventory.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.romen.inventory.entity.User;
 import com.romen.inventory.repository.UserRepository;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.Duration;
+
+/**
+ * Loads users by email or phone through a bounded in-process cache.
+ * Caffeine's W-TinyLFU policy keeps frequently used accounts resident;
+ * each user is cached under both identifiers so either login alias hits.
+ * Also stores re-hashed passwords when login upgrades an outdated hash.
+ */
 @Service
-@RequiredArgsConstructor
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
+    private final Cache<String, User> userCache;
+
+    public CustomUserDetailsService(
+            UserRepository userRepository,
+            MeterRegistry meterRegistry,
+            @Value("${app.user-cache.maximum-size:10000}") long maximumSize,
+            @Value("${app.user-cache.ttl:10m}") Duration ttl) {
+        this.userRepository = userRepository;
+        this.userCache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, userCache, "userDetails");
+    }
 
     @Override
-    @Transactional
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        return userRepository.findByIdentifier(username)
+        User cached = userCache.getIfPresent(username);
+        if (cached != null) {
+            return cached;
+        }
+
+        User user = userRepository.findByIdentifier(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
+        userCache.put(user.getEmail(), user);
+        userCache.put(user.getPhone(), user);
+        return user;
+    }
+
+    /**
+     * Same password in a newer hash format, so tokens and the security version
+     * are left alone. Only replaces the exact hash the login was checked against:
+     * if the password changed in the meantime, the upgrade is dropped. The cached
+     * instance is shared across requests and is never mutated; evicting it lets
+     * the next load pick up the new hash.
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        User user = (User) userDetails;
+        if (userRepository.updatePassword(user.getId(), user.getPassword(), newPassword) > 0) {
+            evict(user);
+        }
+        return user;
+    }
+
+    /**
+     * Drops both aliases of the user now and again after the surrounding
+     * transaction commits, so a concurrent load cannot re-cache the old row.
+     */
+    public void evict(User user) {
+        evictNow(user.getEmail(), user.getPhone());
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            String email = user.getEmail();
+            String phone = user.getPhone();
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evictNow(email, phone);
+                }
+            });
+        }
+    }
+
+    private void evictNow(String email, String phone) {
+        if (email != null) {
+            userCache.invalidate(email);
+        }
+        if (phone != null) {
+            userCache.invalidate(phone);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,239 @@
+package com.romen.inventory.service;
+
+import com.romen.inventory.config.VirtualThreads;
+import com.romen.inventory.entity.EmailOutboxMessage;
+import com.romen.inventory.repository.EmailOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Delivers queued {@link EmailOutboxMessage}s off the request path. A drain
+ * worker claims a batch of due rows by pushing their next_attempt_at forward
+ * under a fresh claim token (a lease, so a crashed or parallel dispatcher never
+ * double-sends within it), sends the whole batch over one SMTP connection, and
+ * records the outcome per message. Failures back off exponentially with jitter
+ * until max-attempts. Without a configured JavaMailSender (no spring.mail.host)
+ * messages are only logged, which keeps local development working.
+ */
+@Component
+@Slf4j
+public class EmailOutboxDispatcher {
+
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final ObjectProvider<JavaMailSender> mailSender;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService executor;
+    private final AtomicInteger activeDrains = new AtomicInteger();
+    private final String from;
+    private final int batchSize;
+    private final int senders;
+    private final int maxAttempts;
+    private final Duration lease;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final Counter sent;
+    private final Counter retried;
+    private final Counter failed;
+    private final Timer batchDuration;
+
+    public EmailOutboxDispatcher(
+            EmailOutboxRepository emailOutboxRepository,
+            ObjectProvider<JavaMailSender> mailSender,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${app.mail.from:no-reply@bakery.local}") String from,
+            @Value("${app.mail.outbox.batch-size:50}") int batchSize,
+            @Value("${app.mail.outbox.senders:2}") int senders,
+            @Value("${app.mail.outbox.max-attempts:8}") int maxAttempts,
+            @Value("${app.mail.outbox.lease:2m}") Duration lease,
+            @Value("${app.mail.outbox.initial-backoff:10s}") Duration initialBackoff,
+            @Value("${app.mail.outbox.max-backoff:1h}") Duration maxBackoff,
+            @Value("${app.threads.virtual:false}") boolean virtualThreads) {
+        this.emailOutboxRepository = emailOutboxRepository;
+        this.mailSender = mailSender;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.from = from;
+        this.batchSize = batchSize;
+        this.senders = senders;
+        this.maxAttempts = maxAttempts;
+        this.lease = lease;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+
+        // Senders mostly wait on SMTP, so in virtual-thread mode they need not hold platform threads
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadFactory threadFactory = virtualThreads
+                ? VirtualThreads.threadFactory("mail-outbox-")
+                : runnable -> {
+                    Thread thread = new Thread(runnable, "mail-outbox-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                };
+        this.executor = Executors.newFixedThreadPool(senders, threadFactory);
+
+        this.sent = Counter.builder("mail.outbox").tag("result", "sent").register(meterRegistry);
+        this.retried = Counter.builder("mail.outbox").tag("result", "retried").register(meterRegistry);
+        this.failed = Counter.builder("mail.outbox").tag("result", "failed").register(meterRegistry);
+        this.batchDuration = Timer.builder("mail.outbox.batch.duration")
+                .description("Time to deliver one claimed batch")
+                .register(meterRegistry);
+    }
+
+    // Safety net for missed wake-ups, retries coming due, and rows left by other nodes
+    @Scheduled(fixedDelayString = "${app.mail.outbox.poll-interval-ms:5000}")
+    public void poll() {
+        requestDispatch();
+    }
+
+    // Starts a drain worker unless all senders are already busy; never blocks the caller
+    public void requestDispatch() {
+        int active;
+        do {
+            active = activeDrains.get();
+            if (active >= senders) {
+                return;
+            }
+        } while (!activeDrains.compareAndSet(active, active + 1));
+        executor.execute(this::drain);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void drain() {
+        try {
+            List<EmailOutboxMessage> batch;
+            while (!(batch = claimBatch()).isEmpty()) {
+                if (batch.size() == batchSize) {
+                    // More is probably waiting; let an idle sender work on it in parallel
+                    requestDispatch();
+                }
+                List<EmailOutboxMessage> claimed = batch;
+                batchDuration.record(() -> deliver(claimed));
+            }
+        } catch (Exception e) {
+            log.error("Email outbox dispatch failed", e);
+        } finally {
+            activeDrains.decrementAndGet();
+        }
+    }
+
+    private List<EmailOutboxMessage> claimBatch() {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<Long> ids = emailOutboxRepository.findDueIds(now, PageRequest.of(0, batchSize));
+            if (ids.isEmpty()) {
+                return List.<EmailOutboxMessage>of();
+            }
+            String token = UUID.randomUUID().toString();
+            if (emailOutboxRepository.claim(ids, now, now.plus(lease), token) == 0) {
+                return List.<EmailOutboxMessage>of();
+            }
+            return emailOutboxRepository.findByIdInAndClaimToken(ids, token);
+        });
+    }
+
+    private void deliver(List<EmailOutboxMessage> batch) {
+        Map<SimpleMailMessage, EmailOutboxMessage> outgoing = new IdentityHashMap<>();
+        for (EmailOutboxMessage message : batch) {
+            SimpleMailMessage mail = new SimpleMailMessage();
+            mail.setFrom(from);
+            mail.setTo(message.getRecipient());
+            mail.setSubject(message.getSubject());
+            mail.setText(message.getBody());
+            outgoing.put(mail, message);
+        }
+
+        Map<EmailOutboxMessage, Exception> failures = new IdentityHashMap<>();
+        JavaMailSender sender = mailSender.getIfAvailable();
+        if (sender == null) {
+            batch.forEach(message -> log.info("Email to {} (no mail server configured): {}\n{}",
+                    message.getRecipient(), message.getSubject(), message.getBody()));
+        } else {
+            try {
+                // JavaMailSenderImpl sends the whole array over a single connection
+                sender.send(outgoing.keySet().toArray(SimpleMailMessage[]::new));
+            } catch (MailSendException e) {
+                e.getFailedMessages().forEach((mail, cause) -> failures.put(outgoing.get(mail), cause));
+                if (failures.isEmpty()) {
+                    batch.forEach(message -> failures.put(message, e));
+                }
+            } catch (MailException e) {
+                batch.forEach(message -> failures.put(message, e));
+            }
+        }
+
+        List<Long> delivered = new ArrayList<>();
+        for (EmailOutboxMessage message : batch) {
+            if (!failures.containsKey(message)) {
+                delivered.add(message.getId());
+            }
+        }
+        // One token per batch; if the lease ran out and another dispatcher took over, its outcome wins
+        String token = batch.get(0).getClaimToken();
+        LocalDateTime now = LocalDateTime.now();
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!delivered.isEmpty()
+                    && emailOutboxRepository.markSent(delivered, token, now) < delivered.size()) {
+                log.warn("Lease on email batch {} expired before delivery was recorded", token);
+            }
+            failures.forEach((message, cause) -> scheduleRetry(message, token, cause, now));
+        });
+        sent.increment(delivered.size());
+    }
+
+    private void scheduleRetry(EmailOutboxMessage message, String token, Exception cause, LocalDateTime now) {
+        int attempts = message.getAttempts() + 1;
+        String error = cause.getMessage() != null ? cause.getMessage() : cause.getClass().getName();
+        error = error.length() > 500 ? error.substring(0, 500) : error;
+        if (attempts >= maxAttempts) {
+            if (emailOutboxRepository.markFailed(message.getId(), token, attempts, error) == 0) {
+                return;
+            }
+            failed.increment();
+            log.error("Giving up on email {} to {} after {} attempts: {}",
+                    message.getId(), message.getRecipient(), attempts, error);
+            return;
+        }
+        // Exponential backoff with jitter so a recovering server is not hit by every retry at once
+        long initial = initialBackoff.toMillis();
+        long ceiling = Math.max(initial, Math.min(maxBackoff.toMillis(), initial << Math.min(attempts - 1, 20)));
+        long delay = ThreadLocalRandom.current().nextLong(initial, ceiling + 1);
+        if (emailOutboxRepository.scheduleRetry(message.getId(), token, attempts, error,
+                now.plus(Duration.ofMillis(delay))) == 0) {
+            return;
+        }
+        retried.increment();
+        log.warn("Email {} to {} failed (attempt {}), retrying in {} ms: {}",
+                message.getId(), message.getRecipient(), attempts, delay, error);
+    }
+}
@@ -0,0 +1,117 @@
+package com.romen.inventory.service;
+
+import com.romen.inventory.entity.EmailOutboxMessage;
+import com.romen.inventory.repository.EmailOutboxRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Deletes sent and permanently failed outbox rows once their last attempt is
+ * older than app.mail.outbox.purge.retention.sent / .failed. Pending rows are
+ * never touched. Works in short chunked transactions under a scheduler lock,
+ * like {@link OtpLogPurgeJob}.
+ */
+@Component
+@Slf4j
+public class EmailOutboxPurgeJob {
+
+    private static final String LOCK_NAME = "email-outbox-purge";
+
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final SchedulerLockService schedulerLockService;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final Map<EmailOutboxMessage.Status, Duration> retention = new EnumMap<>(EmailOutboxMessage.Status.class);
+    private final int chunkSize;
+    private final long pauseMs;
+    private final Duration lockAtMostFor;
+    private final Timer runDuration;
+
+    public EmailOutboxPurgeJob(
+            EmailOutboxRepository emailOutboxRepository,
+            SchedulerLockService schedulerLockService,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${app.mail.outbox.purge.retention.sent:7d}") Duration sentRetention,
+            @Value("${app.mail.outbox.purge.retention.failed:30d}") Duration failedRetention,
+            @Value("${app.mail.outbox.purge.chunk-size:1000}") int chunkSize,
+            @Value("${app.mail.outbox.purge.pause-ms:20}") long pauseMs,
+            @Value("${app.mail.outbox.purge.lock-at-most-for:30m}") Duration lockAtMostFor) {
+        this.emailOutboxRepository = emailOutboxRepository;
+        this.schedulerLockService = schedulerLockService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        this.retention.put(EmailOutboxMessage.Status.SENT, sentRetention);
+        this.retention.put(EmailOutboxMessage.Status.FAILED, failedRetention);
+        this.chunkSize = chunkSize;
+        this.pauseMs = pauseMs;
+        this.lockAtMostFor = lockAtMostFor;
+        this.runDuration = Timer.builder("mail.outbox.purge.duration")
+                .description("Time taken by one email outbox purge run")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.mail.outbox.purge.interval-ms:3600000}",
+            initialDelayString = "${app.mail.outbox.purge.initial-delay-ms:60000}")
+    public void purge() {
+        if (!schedulerLockService.tryLock(LOCK_NAME, lockAtMostFor)) {
+            log.debug("Email outbox purge is running on another node");
+            return;
+        }
+        try {
+            long total = runDuration.record(this::purgeAllStatuses);
+            if (total > 0) {
+                log.info("Purged {} finished email outbox rows", total);
+            }
+        } finally {
+            schedulerLockService.unlock(LOCK_NAME);
+        }
+    }
+
+    private long purgeAllStatuses() {
+        long total = 0;
+        LocalDateTime now = LocalDateTime.now();
+        for (Map.Entry<EmailOutboxMessage.Status, Duration> entry : retention.entrySet()) {
+            total += purgeStatus(entry.getKey(), now.minus(entry.getValue()));
+        }
+        return total;
+    }
+
+    private long purgeStatus(EmailOutboxMessage.Status status, LocalDateTime cutoff) {
+        long purged = 0;
+        int deleted;
+        do {
+            deleted = transactionTemplate.execute(tx -> {
+                List<Long> ids = emailOutboxRepository.findFinishedIds(status, cutoff, PageRequest.of(0, chunkSize));
+                return ids.isEmpty() ? 0 : emailOutboxRepository.deleteByIdIn(ids);
+            });
+            purged += deleted;
+            if (deleted == chunkSize && pauseMs > 0) {
+                try {
+                    Thread.sleep(pauseMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        } while (deleted == chunkSize);
+
+        if (purged > 0) {
+            meterRegistry.counter("mail.outbox.purged", "status", status.name()).increment(purged);
+        }
+        return purged;
+    }
+}
@@ -1,25 +1,84 @@
 package com.romen.inventory.service;
 
+import com.romen.inventory.entity.EmailOutboxMessage;
+import com.romen.inventory.repository.EmailOutboxRepository;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.time.Duration;
+import java.time.LocalDateTime;
 
+// Emails are written to the outbox in the caller's transaction and delivered by EmailOutboxDispatcher
 @Service
 @Slf4j
 public class EmailService {
 
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final EmailOutboxDispatcher emailOutboxDispatcher;
+    private final String otpLifetime;
+
+    public EmailService(
+            EmailOutboxRepository emailOutboxRepository,
+            EmailOutboxDispatcher emailOutboxDispatcher,
+            @Value("${app.otp.ttl:10m}") Duration otpTtl) {
+        this.emailOutboxRepository = emailOutboxRepository;
+        this.emailOutboxDispatcher = emailOutboxDispatcher;
+        this.otpLifetime = describe(otpTtl);
+    }
+
+    @Transactional
     public void sendOtpEmail(String toEmail, String otp, String purpose) {
-        log.info("OTP {} sent to {} for {}", otp, toEmail, purpose);
-        // For now, just log the email
-        System.out.println("OTP Email: " + otp + " to " + toEmail + " for " + purpose);
+        String action = purpose.toLowerCase().replace('_', ' ');
+        enqueue(toEmail, "Your verification code",
+                "Your code for " + action + " is " + otp + ".\n\n" +
+                "It expires in " + otpLifetime + ". If you did not request it, you can ignore this email.");
     }
 
+    @Transactional
     public void sendWelcomeEmail(String toEmail, String fullName) {
-        log.info("Welcome email sent to: {}", toEmail);
-        System.out.println("Welcome email to: " + toEmail);
+        enqueue(toEmail, "Welcome to Bakery Inventory",
+                "Hi " + fullName + ",\n\nYour account has been created.");
     }
 
+    @Transactional
     public void sendPasswordResetEmail(String toEmail, String fullName) {
-        log.info("Password reset email sent to: {}", toEmail);
-        System.out.println("Password reset email to: " + toEmail);
+        enqueue(toEmail, "Your password was reset",
+                "Hi " + fullName + ",\n\nThe password for your account was just changed. " +
+                "If this was not you, contact an administrator.");
+    }
+
+    // "10 minutes", or seconds when the TTL is not a whole number of minutes
+    private static String describe(Duration ttl) {
+        long minutes = ttl.toMinutes();
+        if (minutes > 0 && ttl.toSecondsPart() == 0) {
+            return minutes + (minutes == 1 ? " minute" : " minutes");
+        }
+        long seconds = ttl.toSeconds();
+        return seconds + (seconds == 1 ? " second" : " seconds");
+    }
+
+    private void enqueue(String toEmail, String subject, String body) {
+        emailOutboxRepository.save(EmailOutboxMessage.builder()
+                .recipient(toEmail)
+                .subject(subject)
+                .body(body)
+                .nextAttemptAt(LocalDateTime.now())
+                .build());
+        log.info("Email '{}' queued for {}", subject, toEmail);
+
+        // Wake the dispatcher once the row is visible instead of waiting for its next poll
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    emailOutboxDispatcher.requestDispatch();
+                }
+            });
+        } else {
+            emailOutboxDispatcher.requestDispatch();
+        }
     }
-}
\ No newline at end of file
+}
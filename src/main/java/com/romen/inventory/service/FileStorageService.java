@@ -1,21 +1,55 @@
 // service/FileStorageService.java
 package com.romen.inventory.service;
 
+import com.romen.inventory.entity.StoredBlob;
+import com.romen.inventory.exception.ResourceNotFoundException;
+import com.romen.inventory.repository.StoredBlobRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Stores uploads under {@code app.upload-dir}. In content-addressed mode (the
+ * default) each upload is hashed while it streams to a temp file and kept once
+ * as {@code blobs/ab/cd/<sha256>.ext}; a {@link StoredBlob} row counts the
+ * columns pointing at it, and the file is only removed with its last
+ * reference. Reference changes run in their own short transactions under a
+ * per-path lock so a concurrent upload of the same content never loses its
+ * file to a delete. Other stored paths keep the old one-file-per-upload
+ * behaviour.
+ */
 @Service
 @Slf4j
 public class FileStorageService {
 
+    private static final String BLOB_DIRECTORY = "blobs";
+    private static final String TEMP_DIRECTORY = ".incoming";
+    private static final int LOCK_STRIPES = 64;
+
     @Value("${app.upload-dir}")
     private String uploadDir;
 
@@ -25,38 +59,117 @@ public class FileStorageService {
     @Value("${app.max-file-size-mb}")
     private long maxFileSizeMb;
 
+    @Value("${app.storage.content-addressed:true}")
+    private boolean contentAddressed;
+
+    private final StoredBlobRepository storedBlobRepository;
+    private final TransactionTemplate blobTransaction;
+    // ReentrantLock rather than monitors: the critical sections block on the database and the
+    // disk, and a virtual thread blocking inside synchronized would pin its carrier thread
+    private final ReentrantLock[] blobLocks = new ReentrantLock[LOCK_STRIPES];
+    private final Counter blobsWritten;
+    private final Counter blobsDeduplicated;
+    private final Timer writeDuration;
+    private final DistributionSummary writeBytes;
+
+    public FileStorageService(
+            StoredBlobRepository storedBlobRepository,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry) {
+        this.storedBlobRepository = storedBlobRepository;
+        // Reference counts must not ride on, or be rolled back with, the caller's transaction
+        this.blobTransaction = new TransactionTemplate(transactionManager);
+        this.blobTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            blobLocks[i] = new ReentrantLock();
+        }
+        this.blobsWritten = Counter.builder("storage.blobs").tag("result", "written").register(meterRegistry);
+        this.blobsDeduplicated = Counter.builder("storage.blobs").tag("result", "deduplicated").register(meterRegistry);
+        this.writeDuration = Timer.builder("storage.write.duration")
+                .description("Time to store one file, including hashing and publishing")
+                .register(meterRegistry);
+        this.writeBytes = DistributionSummary.builder("storage.write.bytes")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
     public String storeFile(MultipartFile file, String subDirectory) throws IOException {
         // Validate file
         validateFile(file);
 
-        // Create directory if not exists
-        Path uploadPath = Paths.get(uploadDir, subDirectory);
-        if (!Files.exists(uploadPath)) {
-            Files.createDirectories(uploadPath);
+        String fileExtension = getFileExtension(file.getOriginalFilename()).toLowerCase();
+        long start = System.nanoTime();
+        Path temp = createTempFile();
+        try {
+            // Single pass: the digest is computed as the bytes are written
+            MessageDigest digest = contentAddressed ? sha256() : null;
+            try (InputStream in = file.getInputStream();
+                 OutputStream out = digest != null
+                         ? new DigestOutputStream(Files.newOutputStream(temp), digest)
+                         : Files.newOutputStream(temp)) {
+                in.transferTo(out);
+            }
+            String stored = publish(temp, subDirectory, fileExtension, digest);
+            recordWrite(start, file.getSize());
+            return stored;
+        } finally {
+            Files.deleteIfExists(temp);
         }
+    }
 
-        // Generate unique filename
-        String originalFilename = file.getOriginalFilename();
-        String fileExtension = getFileExtension(originalFilename);
-        String uniqueFilename = UUID.randomUUID().toString() + fileExtension;
+    // Stores a file produced locally, e.g. an image variant written to a temp file from createTempFile
+    public String storeFile(Path source, String subDirectory, String extension) throws IOException {
+        long start = System.nanoTime();
+        try {
+            long size = Files.size(source);
+            MessageDigest digest = null;
+            if (contentAddressed) {
+                digest = sha256();
+                try (InputStream in = Files.newInputStream(source);
+                     OutputStream out = new DigestOutputStream(OutputStream.nullOutputStream(), digest)) {
+                    in.transferTo(out);
+                }
+            }
+            String stored = publish(source, subDirectory, extension, digest);
+            recordWrite(start, size);
+            return stored;
+        } finally {
+            Files.deleteIfExists(source);
+        }
+    }
 
-        // Save file
-        Path filePath = uploadPath.resolve(uniqueFilename);
-        Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
+    // On the upload volume, so finished files can be moved into place atomically
+    public Path createTempFile() throws IOException {
+        Path tempDirectory = resolve(TEMP_DIRECTORY);
+        Files.createDirectories(tempDirectory);
+        return Files.createTempFile(tempDirectory, "upload", ".tmp");
+    }
 
-        // Return relative path
-        return subDirectory + "/" + uniqueFilename;
+    // Absolute location of a stored file; rejects paths that would escape the upload directory
+    public Path resolve(String filePath) {
+        Path root = Paths.get(uploadDir).toAbsolutePath().normalize();
+        Path resolved = root.resolve(filePath).normalize();
+        if (!resolved.startsWith(root)) {
+            throw new IllegalArgumentException("Invalid file path: " + filePath);
+        }
+        return resolved;
     }
 
-    public byte[] getFile(String filePath) throws IOException {
-        Path fullPath = Paths.get(uploadDir, filePath);
-        if (!Files.exists(fullPath)) {
-            throw new IOException("File not found: " + filePath);
+    // Regular file behind a stored path, for streaming straight from disk
+    public Path getFile(String filePath) {
+        Path fullPath = resolve(filePath);
+        if (!Files.isRegularFile(fullPath) || fullPath.startsWith(resolve(TEMP_DIRECTORY))) {
+            throw new ResourceNotFoundException("File not found: " + filePath);
         }
-        return Files.readAllBytes(fullPath);
+        return fullPath;
     }
 
+    // Blobs lose one reference once the caller's transaction commits; other files are deleted outright
     public void deleteFile(String filePath) {
+        if (isBlob(filePath)) {
+            afterCommit(() -> releaseBlob(filePath));
+            return;
+        }
         try {
             Path fullPath = Paths.get(uploadDir, filePath);
             if (Files.exists(fullPath)) {
@@ -68,6 +181,117 @@ public class FileStorageService {
         }
     }
 
+    private String publish(Path temp, String subDirectory, String fileExtension, MessageDigest digest)
+            throws IOException {
+        if (digest == null) {
+            String relativePath = subDirectory + "/" + UUID.randomUUID() + fileExtension;
+            Path target = resolve(relativePath);
+            Files.createDirectories(target.getParent());
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            return relativePath;
+        }
+
+        String hash = HexFormat.of().formatHex(digest.digest());
+        String relativePath = BLOB_DIRECTORY + "/" + hash.substring(0, 2) + "/" + hash.substring(2, 4)
+                + "/" + hash + fileExtension;
+        long size = Files.size(temp);
+        ReentrantLock lock = lockFor(relativePath);
+        lock.lock();
+        try {
+            Path target = resolve(relativePath);
+            boolean known = Boolean.TRUE.equals(blobTransaction.execute(
+                    status -> storedBlobRepository.addReference(relativePath) == 1));
+            if (!known || !Files.exists(target)) {
+                Files.createDirectories(target.getParent());
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+            if (known) {
+                blobsDeduplicated.increment();
+            } else {
+                blobTransaction.executeWithoutResult(status -> storedBlobRepository.save(StoredBlob.builder()
+                        .path(relativePath)
+                        .sha256(hash)
+                        .size(size)
+                        .refCount(1)
+                        .build()));
+                blobsWritten.increment();
+            }
+        } finally {
+            lock.unlock();
+        }
+        // The reference was taken eagerly; give it back if the caller never records the path
+        afterRollback(() -> releaseBlob(relativePath));
+        return relativePath;
+    }
+
+    private void releaseBlob(String relativePath) {
+        try {
+            ReentrantLock lock = lockFor(relativePath);
+            lock.lock();
+            try {
+                boolean unreferenced = Boolean.TRUE.equals(blobTransaction.execute(status ->
+                        storedBlobRepository.removeReference(relativePath) == 1
+                                && storedBlobRepository.deleteIfUnreferenced(relativePath) == 1));
+                if (unreferenced) {
+                    Files.deleteIfExists(resolve(relativePath));
+                    log.info("File deleted: {}", relativePath);
+                }
+            } finally {
+                lock.unlock();
+            }
+        } catch (Exception e) {
+            log.error("Failed to release file: {}", relativePath, e);
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static void afterRollback(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    action.run();
+                }
+            }
+        });
+    }
+
+    private void recordWrite(long startNanos, long bytes) {
+        writeDuration.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        writeBytes.record(bytes);
+    }
+
+    private static boolean isBlob(String filePath) {
+        return filePath.startsWith(BLOB_DIRECTORY + "/");
+    }
+
+    private ReentrantLock lockFor(String relativePath) {
+        return blobLocks[Math.floorMod(relativePath.hashCode(), LOCK_STRIPES)];
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
     private void validateFile(MultipartFile file) {
         if (file == null || file.isEmpty()) {
             throw new IllegalArgumentException("File is empty");
@@ -0,0 +1,288 @@
+package com.romen.inventory.service;
+
+import com.romen.inventory.dto.CategoryNode;
+import com.romen.inventory.repository.CategoryRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Produces thumbnail and medium variants of uploaded category images with
+ * plain ImageIO. Each original is decoded once, subsampled while decoding when
+ * it is much larger than needed, and scaled down in halving steps. Work runs
+ * on a small bounded pool after the upload's transaction commits; anything
+ * the pool could not take, or that was lost on restart, is picked up by a
+ * periodic sweep for images that still have no variants.
+ */
+@Service
+@Slf4j
+public class ImageVariantService {
+
+    private final CategoryRepository categoryRepository;
+    private final CategoryCatalog categoryCatalog;
+    private final FileStorageService fileStorageService;
+    private final ThreadPoolExecutor executor;
+    private final int thumbnailSize;
+    private final int mediumSize;
+    private final long maxPixels;
+    // Originals that could not be decoded; not retried until restart
+    private final Set<String> failedImages = ConcurrentHashMap.newKeySet();
+    private final Set<String> queuedImages = ConcurrentHashMap.newKeySet();
+    private final Counter generated;
+    private final Counter failed;
+    private final Counter rejected;
+    private final Timer duration;
+
+    public ImageVariantService(
+            CategoryRepository categoryRepository,
+            CategoryCatalog categoryCatalog,
+            FileStorageService fileStorageService,
+            MeterRegistry meterRegistry,
+            @Value("${app.images.workers:2}") int workers,
+            @Value("${app.images.queue-capacity:100}") int queueCapacity,
+            @Value("${app.images.thumbnail-size:200}") int thumbnailSize,
+            @Value("${app.images.medium-size:800}") int mediumSize,
+            @Value("${app.images.max-pixels:40000000}") long maxPixels) {
+        this.categoryRepository = categoryRepository;
+        this.categoryCatalog = categoryCatalog;
+        this.fileStorageService = fileStorageService;
+        this.thumbnailSize = thumbnailSize;
+        this.mediumSize = mediumSize;
+        this.maxPixels = maxPixels;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "image-variants-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.NORM_PRIORITY - 1);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        this.generated = Counter.builder("images.variants").tag("result", "generated").register(meterRegistry);
+        this.failed = Counter.builder("images.variants").tag("result", "failed").register(meterRegistry);
+        this.rejected = Counter.builder("images.variants").tag("result", "rejected").register(meterRegistry);
+        this.duration = Timer.builder("images.variants.duration")
+                .description("Time to decode an original and write its variants")
+                .register(meterRegistry);
+    }
+
+    public void generateAfterCommit(Long categoryId, String imageUrl) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            submit(categoryId, imageUrl);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                submit(categoryId, imageUrl);
+            }
+        });
+    }
+
+    public void deleteVariants(String thumbnailUrl, String mediumUrl) {
+        if (thumbnailUrl != null) {
+            fileStorageService.deleteFile(thumbnailUrl);
+        }
+        if (mediumUrl != null) {
+            fileStorageService.deleteFile(mediumUrl);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.images.sweep-interval-ms:600000}",
+            initialDelayString = "${app.images.sweep-interval-ms:600000}")
+    public void sweepMissingVariants() {
+        int capacity = executor.getQueue().remainingCapacity();
+        if (capacity == 0) {
+            return;
+        }
+        List<Object[]> missing = categoryRepository.findImagesMissingVariants(PageRequest.of(0, capacity));
+        for (Object[] row : missing) {
+            String imageUrl = (String) row[1];
+            if (!failedImages.contains(imageUrl)) {
+                submit((Long) row[0], imageUrl);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void submit(Long categoryId, String imageUrl) {
+        if (!queuedImages.add(imageUrl)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    duration.record(() -> process(categoryId, imageUrl));
+                } finally {
+                    queuedImages.remove(imageUrl);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            queuedImages.remove(imageUrl);
+            rejected.increment();
+            log.warn("Image variant queue full, category {} will be picked up by the next sweep", categoryId);
+        }
+    }
+
+    private void process(Long categoryId, String imageUrl) {
+        String thumbnailUrl = null;
+        String mediumUrl = null;
+        try {
+            BufferedImage original = decode(fileStorageService.resolve(imageUrl));
+            BufferedImage medium = scaleToFit(original, mediumSize);
+            BufferedImage thumbnail = scaleToFit(medium, thumbnailSize);
+
+            mediumUrl = write(medium);
+            thumbnailUrl = write(thumbnail);
+
+            if (categoryRepository.updateImageVariants(categoryId, imageUrl, thumbnailUrl, mediumUrl) == 0) {
+                // The image was replaced or the category deleted while we worked
+                deleteVariants(thumbnailUrl, mediumUrl);
+                return;
+            }
+            CategoryNode node = categoryCatalog.snapshot().get(categoryId);
+            if (node != null && imageUrl.equals(node.getImageUrl())) {
+                categoryCatalog.upsertAfterCommit(node.toBuilder()
+                        .thumbnailUrl(thumbnailUrl)
+                        .mediumUrl(mediumUrl)
+                        .build());
+            }
+            generated.increment();
+            log.debug("Generated image variants for category {}", categoryId);
+        } catch (Exception e) {
+            failed.increment();
+            failedImages.add(imageUrl);
+            deleteVariants(thumbnailUrl, mediumUrl);
+            log.warn("Could not generate image variants for category {} from {}: {}",
+                    categoryId, imageUrl, e.getMessage());
+        }
+    }
+
+    // Decodes with source subsampling so huge originals never materialize at full size
+    private BufferedImage decode(Path path) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(path.toFile())) {
+            if (input == null) {
+                throw new IOException("Cannot open " + path);
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                throw new IOException("Unsupported image format");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxPixels) {
+                    throw new IOException("Image is " + width + "x" + height + ", larger than allowed");
+                }
+                ImageReadParam param = reader.getDefaultReadParam();
+                int subsampling = Math.max(1, Math.min(width, height) / (mediumSize * 2));
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // Bilinear halving steps avoid the aliasing of a single large downscale
+    private static BufferedImage scaleToFit(BufferedImage source, int maxSize) {
+        int targetWidth = source.getWidth();
+        int targetHeight = source.getHeight();
+        double scale = Math.min(1.0, (double) maxSize / Math.max(targetWidth, targetHeight));
+        targetWidth = Math.max(1, (int) Math.round(targetWidth * scale));
+        targetHeight = Math.max(1, (int) Math.round(targetHeight * scale));
+
+        int type = source.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        BufferedImage current = source;
+        int width = source.getWidth();
+        int height = source.getHeight();
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            BufferedImage step = new BufferedImage(width, height, type);
+            Graphics2D graphics = step.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                graphics.drawImage(current, 0, 0, width, height, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = step;
+        } while (width != targetWidth || height != targetHeight);
+        return current;
+    }
+
+    // Opaque images become JPEG, images with transparency PNG
+    private String write(BufferedImage image) throws IOException {
+        boolean png = image.getColorModel().hasAlpha();
+        Path temp = fileStorageService.createTempFile();
+        try {
+            if (png) {
+                ImageIO.write(image, "png", temp.toFile());
+            } else {
+                writeJpeg(image, temp);
+            }
+            return fileStorageService.storeFile(temp, "categories", png ? ".png" : ".jpg");
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static void writeJpeg(BufferedImage image, Path path) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(path.toFile())) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(0.82f);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+}
@@ -1,23 +1,46 @@
 package com.romen.inventory.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.romen.inventory.entity.User;
+import com.romen.inventory.security.RevokedTokenException;
+import com.romen.inventory.security.TokenRevocationStore;
+import com.romen.inventory.security.VerifiedToken;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
 @Service
+@RequiredArgsConstructor
 public class JwtService {
 
+    private final TokenRevocationStore revocationStore;
+    private final MeterRegistry meterRegistry;
+
     @Value("${jwt.secret}")
     private String secretKey;
 
@@ -27,18 +50,117 @@ public class JwtService {
     @Value("${jwt.refresh-expiration}")
     private long refreshExpiration;
 
+    @Value("${jwt.verified-cache.enabled:true}")
+    private boolean verifiedCacheEnabled;
+
+    @Value("${jwt.verified-cache.maximum-size:50000}")
+    private long verifiedCacheMaximumSize;
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    // Decoded once; the parser is immutable and thread-safe
+    private SecretKey signInKey;
+    private JwtParser jwtParser;
+
+    // SHA-256 of the compact token -> claims that already passed signature and expiry checks
+    private Cache<String, VerifiedToken> verifiedTokens;
+
+    private Timer cachedVerifications;
+    private Timer parsedVerifications;
+
+    @PostConstruct
+    void init() {
+        byte[] keyBytes = Decoders.BASE64.decode(secretKey);
+        this.signInKey = Keys.hmacShaKeyFor(keyBytes);
+        this.jwtParser = Jwts.parser()
+                .verifyWith(signInKey)
+                .build();
+        this.cachedVerifications = Timer.builder("auth.jwt.verify")
+                .description("Token verification, answered from the verified-token cache or by parsing")
+                .tag("source", "cache")
+                .register(meterRegistry);
+        this.parsedVerifications = Timer.builder("auth.jwt.verify")
+                .description("Token verification, answered from the verified-token cache or by parsing")
+                .tag("source", "parse")
+                .register(meterRegistry);
+        if (verifiedCacheEnabled) {
+            this.verifiedTokens = Caffeine.newBuilder()
+                    .maximumSize(verifiedCacheMaximumSize)
+                    .expireAfter(new TokenExpiry())
+                    .build();
+        }
+    }
+
+    /**
+     * Parses and verifies the token exactly once (signature and expiry).
+     * Repeat presentations of the same token are answered from the
+     * verified-token cache until the token's own expiry.
+     * Throws {@link io.jsonwebtoken.JwtException} if the token is invalid, expired or revoked.
+     */
+    public VerifiedToken verify(String token) {
+        VerifiedToken verified = verifySignature(token);
+        if (revocationStore.isRevoked(verified.getTokenId())) {
+            throw new RevokedTokenException("Token has been revoked");
+        }
+        return verified;
+    }
+
+    /**
+     * Revokes the token until its natural expiry. Tokens that are already
+     * invalid, expired or revoked are ignored.
+     */
+    public void revoke(String token) {
+        VerifiedToken verified;
+        try {
+            verified = verifySignature(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            return;
+        }
+        if (verified.getTokenId() != null && verified.getExpiresAt() != null) {
+            revocationStore.revoke(verified.getTokenId(), verified.getExpiresAt().getTime());
+        }
+    }
+
+    private VerifiedToken verifySignature(String token) {
+        long start = System.nanoTime();
+        String key = null;
+        if (verifiedTokens != null) {
+            key = digest(token);
+            VerifiedToken cached = verifiedTokens.getIfPresent(key);
+            if (cached != null && !cached.isExpired()) {
+                cachedVerifications.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                return cached;
+            }
+        }
+
+        // Rejected tokens are timed too; they cost a full parse
+        try {
+            VerifiedToken verified = VerifiedToken.from(extractAllClaims(token));
+            if (key != null) {
+                verifiedTokens.put(key, verified);
+            }
+            return verified;
+        } finally {
+            parsedVerifications.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
     public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
+        return verify(token).getSubject();
     }
 
-    public String extractUserId(String token) {
-        Claims claims = extractAllClaims(token);
-        return claims.get("userId", String.class);
+    public Long extractUserId(String token) {
+        return verify(token).getUserId();
     }
 
     public String extractRole(String token) {
-        Claims claims = extractAllClaims(token);
-        return claims.get("role", String.class);
+        return verify(token).getRole();
     }
 
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
@@ -47,11 +169,25 @@ public class JwtService {
     }
 
     public String generateToken(UserDetails userDetails) {
-        return generateToken(new HashMap<>(), userDetails, jwtExpiration);
+        return generateToken(principalClaims(userDetails), userDetails, jwtExpiration);
     }
 
     public String generateRefreshToken(UserDetails userDetails) {
-        return generateToken(new HashMap<>(), userDetails, refreshExpiration);
+        return generateToken(principalClaims(userDetails), userDetails, refreshExpiration);
+    }
+
+    // Claims that let the filter authenticate without loading the user
+    private Map<String, Object> principalClaims(UserDetails userDetails) {
+        Map<String, Object> claims = new HashMap<>();
+        if (userDetails instanceof User user) {
+            claims.put("userId", user.getId());
+            claims.put("role", user.getRole().name());
+            claims.put("name", user.getFullName());
+            claims.put("enabled", user.isEnabled());
+            claims.put("locked", !user.isAccountNonLocked());
+            claims.put("sv", user.currentSecurityVersion());
+        }
+        return claims;
     }
 
     private String generateToken(
@@ -63,36 +199,55 @@ public class JwtService {
 
         return Jwts.builder()
                 .claims(claims)
+                .id(UUID.randomUUID().toString())
                 .subject(userDetails.getUsername())
                 .issuedAt(new Date(System.currentTimeMillis()))
                 .expiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSignInKey(), SignatureAlgorithm.HS256)
+                .signWith(signInKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
     public boolean isTokenValid(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername())) && !isTokenExpired(token);
+        return isTokenValid(verify(token), userDetails);
     }
 
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
-    }
-
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+    public boolean isTokenValid(VerifiedToken token, UserDetails userDetails) {
+        return token.getSubject() != null
+                && token.getSubject().equals(userDetails.getUsername())
+                && !token.isExpired();
     }
 
     private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith((SecretKey) getSignInKey())
-                .build()
+        return jwtParser
                 .parseSignedClaims(token)
                 .getPayload();
     }
 
-    private SecretKey getSignInKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(secretKey);
-        return Keys.hmacShaKeyFor(keyBytes);
+    private static String digest(String token) {
+        byte[] hash = SHA_256.get().digest(token.getBytes(StandardCharsets.US_ASCII));
+        return Base64.getEncoder().withoutPadding().encodeToString(hash);
+    }
+
+    // Entries never outlive the token they vouch for
+    private static final class TokenExpiry implements Expiry<String, VerifiedToken> {
+
+        @Override
+        public long expireAfterCreate(String key, VerifiedToken value, long currentTime) {
+            if (value.getExpiresAt() == null) {
+                return 0;
+            }
+            long remainingMillis = value.getExpiresAt().getTime() - System.currentTimeMillis();
+            return Math.max(0, TimeUnit.MILLISECONDS.toNanos(remainingMillis));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, VerifiedToken value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, VerifiedToken value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
     }
 }
@@ -0,0 +1,122 @@
+package com.romen.inventory.service;
+
+import com.romen.inventory.entity.OtpLog;
+import com.romen.inventory.repository.OtpLogRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Deletes OtpLog rows once they are older than their type's retention
+ * (app.otp.purge.retention.&lt;type&gt;, falling back to .default). Rows go in
+ * chunks of ids read oldest-first along idx_otp_logs_expiry, each chunk in its
+ * own short transaction, so the table is never locked for long. The run holds
+ * a scheduler lock, so only one node purges at a time.
+ */
+@Component
+@Slf4j
+public class OtpLogPurgeJob {
+
+    private static final String LOCK_NAME = "otp-log-purge";
+
+    private final OtpLogRepository otpLogRepository;
+    private final SchedulerLockService schedulerLockService;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final Map<OtpLog.OtpType, Duration> retention = new EnumMap<>(OtpLog.OtpType.class);
+    private final int chunkSize;
+    private final long pauseMs;
+    private final Duration lockAtMostFor;
+    private final Timer runDuration;
+
+    public OtpLogPurgeJob(
+            OtpLogRepository otpLogRepository,
+            SchedulerLockService schedulerLockService,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            Environment environment,
+            @Value("${app.otp.purge.retention.default:30d}") Duration defaultRetention,
+            @Value("${app.otp.purge.chunk-size:1000}") int chunkSize,
+            @Value("${app.otp.purge.pause-ms:20}") long pauseMs,
+            @Value("${app.otp.purge.lock-at-most-for:30m}") Duration lockAtMostFor) {
+        this.otpLogRepository = otpLogRepository;
+        this.schedulerLockService = schedulerLockService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        for (OtpLog.OtpType otpType : OtpLog.OtpType.values()) {
+            String key = "app.otp.purge.retention." + otpType.name().toLowerCase().replace('_', '-');
+            retention.put(otpType, environment.getProperty(key, Duration.class, defaultRetention));
+        }
+        this.chunkSize = chunkSize;
+        this.pauseMs = pauseMs;
+        this.lockAtMostFor = lockAtMostFor;
+        this.runDuration = Timer.builder("otp.logs.purge.duration")
+                .description("Time taken by one OTP log purge run")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.otp.purge.interval-ms:3600000}",
+            initialDelayString = "${app.otp.purge.initial-delay-ms:60000}")
+    public void purge() {
+        if (!schedulerLockService.tryLock(LOCK_NAME, lockAtMostFor)) {
+            log.debug("OTP log purge is running on another node");
+            return;
+        }
+        try {
+            long total = runDuration.record(this::purgeAllTypes);
+            if (total > 0) {
+                log.info("Purged {} expired OTP log rows", total);
+            }
+        } finally {
+            schedulerLockService.unlock(LOCK_NAME);
+        }
+    }
+
+    private long purgeAllTypes() {
+        long total = 0;
+        LocalDateTime now = LocalDateTime.now();
+        for (Map.Entry<OtpLog.OtpType, Duration> entry : retention.entrySet()) {
+            total += purgeType(entry.getKey(), now.minus(entry.getValue()));
+        }
+        return total;
+    }
+
+    private long purgeType(OtpLog.OtpType otpType, LocalDateTime cutoff) {
+        long purged = 0;
+        int deleted;
+        do {
+            deleted = transactionTemplate.execute(status -> {
+                List<Long> ids = otpLogRepository.findExpiredIds(otpType, cutoff, PageRequest.of(0, chunkSize));
+                return ids.isEmpty() ? 0 : otpLogRepository.deleteByIdIn(ids);
+            });
+            purged += deleted;
+            if (deleted == chunkSize && pauseMs > 0) {
+                // Leave room between chunks for request traffic on the same table
+                try {
+                    Thread.sleep(pauseMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        } while (deleted == chunkSize);
+
+        if (purged > 0) {
+            meterRegistry.counter("otp.logs.purged", "type", otpType.name()).increment(purged);
+        }
+        return purged;
+    }
+}
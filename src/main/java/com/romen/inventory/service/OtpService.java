@@ -1,39 +1,197 @@
 package com.romen.inventory.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.romen.inventory.entity.OtpLog;
 import com.romen.inventory.repository.OtpLogRepository;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.crypto.KeyGenerator;
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.Random;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Issues and checks one-time codes entirely in memory. Codes come from
+ * SecureRandom and only their HMAC (under a key generated at startup) is kept,
+ * in an expiring map keyed by identifier and type; issuing a new code replaces
+ * the previous one. A correct code is consumed by an atomic remove, so two
+ * concurrent checks cannot both succeed, and a code is dropped after
+ * max-attempts wrong guesses. OtpLog rows are an audit trail only: they are
+ * queued and written in batches off the request path, and never read back.
+ */
 @Service
-@RequiredArgsConstructor
+@Slf4j
 public class OtpService {
 
     private final OtpLogRepository otpLogRepository;
+    private final EmailService emailService;
+    private final TransactionTemplate transactionTemplate;
+    private final SecureRandom random = new SecureRandom();
+    private final SecretKey hashKey;
+    private final Cache<CodeKey, IssuedCode> codes;
+    private final BlockingQueue<OtpLog> pendingLogs;
+    private final Duration ttl;
+    private final int length;
+    private final int maxAttempts;
+    private final int logBatchSize;
+    private final Counter issued;
+    private final Counter verified;
+    private final Counter rejected;
+    private final Counter droppedLogs;
 
+    public OtpService(
+            OtpLogRepository otpLogRepository,
+            EmailService emailService,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${app.otp.ttl:10m}") Duration ttl,
+            @Value("${app.otp.length:6}") int length,
+            @Value("${app.otp.max-attempts:5}") int maxAttempts,
+            @Value("${app.otp.maximum-size:100000}") long maximumSize,
+            @Value("${app.otp.log.queue-capacity:10000}") int logQueueCapacity,
+            @Value("${app.otp.log.batch-size:500}") int logBatchSize) throws GeneralSecurityException {
+        this.otpLogRepository = otpLogRepository;
+        this.emailService = emailService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.hashKey = KeyGenerator.getInstance("HmacSHA256").generateKey();
+        this.codes = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .build();
+        this.pendingLogs = new ArrayBlockingQueue<>(logQueueCapacity);
+        this.ttl = ttl;
+        this.length = length;
+        this.maxAttempts = maxAttempts;
+        this.logBatchSize = logBatchSize;
+        this.issued = Counter.builder("otp.codes").tag("result", "issued").register(meterRegistry);
+        this.verified = Counter.builder("otp.codes").tag("result", "verified").register(meterRegistry);
+        this.rejected = Counter.builder("otp.codes").tag("result", "rejected").register(meterRegistry);
+        this.droppedLogs = Counter.builder("otp.logs.dropped")
+                .description("Audit rows discarded because the write-behind queue was full")
+                .register(meterRegistry);
+    }
+
+    // Returns the plain code; only its hash is retained
     @Transactional
-    public OtpLog createOtp(String email, String phone, OtpLog.OtpType otpType) {
-        // Generate simple OTP for now
-        String otp = "123456"; // In production, generate random OTP
-        LocalDateTime expiresAt = LocalDateTime.now().plusMinutes(10);
+    public String createOtp(String email, String phone, OtpLog.OtpType otpType) {
+        String identifier = email != null ? email : phone;
+        String otp = String.format("%0" + length + "d", random.nextInt((int) Math.pow(10, length)));
+        byte[] hash = hash(identifier, otpType, otp);
 
         OtpLog otpLog = OtpLog.builder()
                 .email(email)
                 .phone(phone)
-                .otp(otp)
+                .otp(HexFormat.of().formatHex(hash))
                 .otpType(otpType)
-                .expiresAt(expiresAt)
+                .isUsed(false)
+                .attempts(0)
+                .expiresAt(LocalDateTime.now().plus(ttl))
                 .build();
+        codes.put(new CodeKey(identifier, otpType), new IssuedCode(hash, otpLog));
+        writeBehind(otpLog);
+        issued.increment();
 
-        return otpLogRepository.save(otpLog);
+        if (email != null) {
+            // Queued in this transaction, so the code is only mailed if the caller's work commits
+            emailService.sendOtpEmail(email, otp, otpType.name());
+        }
+        return otp;
     }
 
-    @Transactional
     public boolean validateOtp(String identifier, String otp, OtpLog.OtpType otpType) {
-        // For testing, accept "123456" as valid OTP
-        return "123456".equals(otp);
+        CodeKey key = new CodeKey(identifier, otpType);
+        IssuedCode code = codes.getIfPresent(key);
+        if (code == null || otp == null) {
+            rejected.increment();
+            return false;
+        }
+
+        if (MessageDigest.isEqual(code.hash(), hash(identifier, otpType, otp))) {
+            // Whoever removes the entry owns the single use
+            if (codes.asMap().remove(key, code)) {
+                code.auditLog().setIsUsed(true);
+                code.auditLog().setAttempts(code.attempts().get() + 1);
+                writeBehind(code.auditLog());
+                verified.increment();
+                return true;
+            }
+            rejected.increment();
+            return false;
+        }
+
+        int attempts = code.attempts().incrementAndGet();
+        code.auditLog().setAttempts(attempts);
+        if (attempts >= maxAttempts && codes.asMap().remove(key, code)) {
+            log.warn("OTP for {} ({}) discarded after {} wrong attempts", identifier, otpType, attempts);
+            writeBehind(code.auditLog());
+        }
+        rejected.increment();
+        return false;
+    }
+
+    @Scheduled(fixedDelayString = "${app.otp.log.flush-interval-ms:1000}")
+    public void flushLogs() {
+        List<OtpLog> batch = new ArrayList<>(logBatchSize);
+        while (pendingLogs.drainTo(batch, logBatchSize) > 0) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> otpLogRepository.saveAll(batch));
+            } catch (Exception e) {
+                log.error("Failed to write {} OTP log rows", batch.size(), e);
+            }
+            batch.clear();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flushLogs();
+    }
+
+    private void writeBehind(OtpLog otpLog) {
+        if (!pendingLogs.offer(otpLog)) {
+            droppedLogs.increment();
+        }
+    }
+
+    private byte[] hash(String identifier, OtpLog.OtpType otpType, String otp) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(hashKey);
+            // Binding identifier and type means a code can only ever match the request it was issued for
+            mac.update((identifier + '\u0000' + otpType.name() + '\u0000').getBytes(StandardCharsets.UTF_8));
+            return mac.doFinal(otp.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+
+    private record CodeKey(String identifier, OtpLog.OtpType otpType) {
+    }
+
+    private record IssuedCode(byte[] hash, OtpLog auditLog, AtomicInteger attempts) {
+        IssuedCode(byte[] hash, OtpLog auditLog) {
+            this(hash, auditLog, new AtomicInteger());
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,66 @@
+package com.romen.inventory.service;
+
+import com.romen.inventory.entity.SchedulerLock;
+import com.romen.inventory.repository.SchedulerLockRepository;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Lease-based locks in the scheduler_locks table, so a job scheduled on every
+ * node runs on one at a time. A lease expires on its own after lockAtMostFor,
+ * which bounds how long a crashed holder can block the others.
+ */
+@Service
+public class SchedulerLockService {
+
+    private final SchedulerLockRepository schedulerLockRepository;
+    private final TransactionTemplate lockTransaction;
+    private final String owner = ManagementFactory.getRuntimeMXBean().getName() + "/" + UUID.randomUUID();
+
+    public SchedulerLockService(
+            SchedulerLockRepository schedulerLockRepository,
+            PlatformTransactionManager transactionManager) {
+        this.schedulerLockRepository = schedulerLockRepository;
+        this.lockTransaction = new TransactionTemplate(transactionManager);
+        this.lockTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public boolean tryLock(String name, Duration lockAtMostFor) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime until = now.plus(lockAtMostFor);
+        Integer acquired = lockTransaction.execute(status ->
+                schedulerLockRepository.acquire(name, owner, now, until));
+        if (acquired != null && acquired == 1) {
+            return true;
+        }
+        try {
+            // First run anywhere: the row does not exist yet, and the primary key lets only one insert win
+            return Boolean.TRUE.equals(lockTransaction.execute(status -> {
+                if (schedulerLockRepository.existsById(name)) {
+                    return false;
+                }
+                schedulerLockRepository.saveAndFlush(SchedulerLock.builder()
+                        .name(name)
+                        .lockedUntil(until)
+                        .lockedBy(owner)
+                        .build());
+                return true;
+            }));
+        } catch (DataIntegrityViolationException e) {
+            return false;
+        }
+    }
+
+    public void unlock(String name) {
+        lockTransaction.executeWithoutResult(status ->
+                schedulerLockRepository.release(name, owner, LocalDateTime.now()));
+    }
+}
@@ -1,16 +1,21 @@
 package com.romen.inventory.service;
 
+import com.romen.inventory.dto.CursorPage;
 import com.romen.inventory.dto.RegisterRequest;
 import com.romen.inventory.dto.UserResponse;
+import com.romen.inventory.entity.OtpLog;
 import com.romen.inventory.entity.User;
 import com.romen.inventory.repository.UserRepository;
+import com.romen.inventory.security.UserSecurityVersions;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -18,6 +23,15 @@ public class UserService {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final UserSecurityVersions securityVersions;
+    private final CustomUserDetailsService userDetailsService;
+    private final OtpService otpService;
+
+    @Value("${app.otp.lockout.max-failures:5}")
+    private int maxOtpFailures;
+
+    @Value("${app.otp.lockout.duration:15m}")
+    private Duration otpLockout;
 
     @Transactional
     public User registerUser(RegisterRequest request) {
@@ -39,22 +53,22 @@ public class UserService {
                 .isActive(true)
                 .isEmailVerified(false)
                 .isPhoneVerified(false)
+                .securityVersion(0L)
                 .build();
 
         return userRepository.save(user);
     }
 
-    @Transactional
+    // A wrong code must still persist the attempt count, so that failure does not roll back
+    @Transactional(noRollbackFor = IllegalArgumentException.class)
     public User verifyEmail(String identifier, String otp) {
         User user = userRepository.findByIdentifier(identifier)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
-        // For now, accept any OTP that is "123456"
-        if (!"123456".equals(otp)) {
-            throw new IllegalArgumentException("Invalid OTP");
-        }
+        checkOtp(user, identifier, otp, OtpLog.OtpType.VERIFY_EMAIL, OtpLog.OtpType.REGISTER);
 
         user.setIsEmailVerified(true);
+        userDetailsService.evict(user);
         return userRepository.save(user);
     }
 
@@ -77,23 +91,26 @@ public class UserService {
         return mapToUserResponse(user);
     }
 
-    public List<UserResponse> getAllUsers() {
-        return userRepository.findAll().stream()
-                .map(this::mapToUserResponse)
-                .collect(Collectors.toList());
+    // Keyset page ordered by id, which follows creation order
+    public CursorPage<UserResponse> getAllUsers(Long after, Integer limit, boolean includeTotal) {
+        int pageSize = CursorPage.clampLimit(limit);
+        List<User> rows = userRepository.findPageAfter(after != null ? after : 0L, PageRequest.of(0, pageSize + 1));
+        Long total = includeTotal ? userRepository.count() : null;
+        return CursorPage.of(rows, pageSize, User::getId, total).map(this::mapToUserResponse);
     }
 
-    public List<UserResponse> getActiveEmployees() {
-        return userRepository.findAllActiveEmployees().stream()
-                .map(this::mapToUserResponse)
-                .collect(Collectors.toList());
+    public CursorPage<UserResponse> getActiveEmployees(Long after, Integer limit, boolean includeTotal) {
+        int pageSize = CursorPage.clampLimit(limit);
+        List<User> rows = userRepository.findActiveEmployeesAfter(after != null ? after : 0L, PageRequest.of(0, pageSize + 1));
+        Long total = includeTotal ? userRepository.countActiveEmployees() : null;
+        return CursorPage.of(rows, pageSize, User::getId, total).map(this::mapToUserResponse);
     }
 
     @Transactional
     public User updateUserStatus(Long id, boolean isActive) {
         User user = getUserById(id);
         user.setIsActive(isActive);
-        return userRepository.save(user);
+        return saveWithNewSecurityVersion(user);
     }
 
     @Transactional
@@ -105,21 +122,18 @@ public class UserService {
         }
 
         user.setPassword(passwordEncoder.encode(newPassword));
-        return userRepository.save(user);
+        return saveWithNewSecurityVersion(user);
     }
 
-    @Transactional
+    @Transactional(noRollbackFor = IllegalArgumentException.class)
     public void resetPassword(String identifier, String otp, String newPassword) {
         User user = userRepository.findByIdentifier(identifier)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
-        // For now, accept any OTP that is "123456"
-        if (!"123456".equals(otp)) {
-            throw new IllegalArgumentException("Invalid OTP");
-        }
+        checkOtp(user, identifier, otp, OtpLog.OtpType.RESET_PASSWORD);
 
         user.setPassword(passwordEncoder.encode(newPassword));
-        userRepository.save(user);
+        saveWithNewSecurityVersion(user);
     }
 
     @Transactional
@@ -138,9 +152,51 @@ public class UserService {
             user.setProfileImage(profileImage);
         }
 
+        userDetailsService.evict(user);
         return userRepository.save(user);
     }
 
+    /**
+     * Consecutive failures count toward User.otpAttempts. Reaching the limit
+     * locks the account for app.otp.lockout.duration and revokes its tokens;
+     * while locked no code is checked at all. A successful code clears the count.
+     */
+    private void checkOtp(User user, String identifier, String otp, OtpLog.OtpType... accepted) {
+        if (user.isOtpLocked()) {
+            throw new IllegalArgumentException("Too many invalid codes, try again later");
+        }
+        for (OtpLog.OtpType otpType : accepted) {
+            if (otpService.validateOtp(identifier, otp, otpType)) {
+                if (user.getOtpAttempts() != null && user.getOtpAttempts() > 0) {
+                    user.setOtpAttempts(0);
+                    userDetailsService.evict(user);
+                }
+                return;
+            }
+        }
+        int attempts = (user.getOtpAttempts() != null ? user.getOtpAttempts() : 0) + 1;
+        if (attempts >= maxOtpFailures) {
+            // The next lockout starts from a clean count once this one has passed
+            user.setOtpAttempts(0);
+            user.setOtpLockedUntil(LocalDateTime.now().plus(otpLockout));
+            saveWithNewSecurityVersion(user);
+        } else {
+            user.setOtpAttempts(attempts);
+            userDetailsService.evict(user);
+            userRepository.save(user);
+        }
+        throw new IllegalArgumentException("Invalid OTP");
+    }
+
+    // Invalidates every token issued before this change once the transaction commits
+    private User saveWithNewSecurityVersion(User user) {
+        user.bumpSecurityVersion();
+        userDetailsService.evict(user);
+        User saved = userRepository.save(user);
+        securityVersions.updateAfterCommit(saved.getId(), saved.currentSecurityVersion());
+        return saved;
+    }
+
     private UserResponse mapToUserResponse(User user) {
         return UserResponse.builder()
                 .id(user.getId())
@@ -0,0 +1,200 @@
+package com.romen.inventory.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Closed-loop HTTP load against a running instance: each of the concurrent
+ * clients sends its next request as soon as the previous one answers, and
+ * throughput plus p50/p99 latency are printed per endpoint. Used to compare
+ * app.threads.virtual=false and =true on the same machine.
+ *
+ * Start the app (Java 21 for the virtual mode) with OTPs exposed and rate
+ * limiting off, e.g.
+ * java -jar target/inventory-management-1.0.0.jar --spring.jpa.show-sql=false
+ *     --app.otp.expose-in-response=true --app.rate-limit.enabled=false [--app.threads.virtual=true]
+ * then run:
+ * mvn test-compile exec:java -Dexec.classpathScope=test
+ *     -Dexec.mainClass=com.romen.inventory.benchmark.HttpLoadTest
+ *     -Dexec.args="http://localhost:8080/api/api 200 20"
+ */
+public class HttpLoadTest {
+
+    private static final Pattern TOKEN = Pattern.compile("\"token\"\\s*:\\s*\"([^\"]+)\"");
+    private static final Pattern OTP = Pattern.compile("\"otp\"\\s*:\\s*\"([^\"]+)\"");
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .executor(Executors.newCachedThreadPool())
+            .build();
+    private final String baseUrl;
+
+    HttpLoadTest(String baseUrl) {
+        this.baseUrl = baseUrl;
+    }
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:8080/api/api";
+        int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        HttpLoadTest test = new HttpLoadTest(baseUrl);
+
+        String email = "load-" + UUID.randomUUID().toString().substring(0, 8) + "@example.com";
+        String token = test.createUser(email, "secret123");
+        test.seedCategories(token, 500);
+
+        String loginBody = "{\"identifier\":\"" + email + "\",\"password\":\"secret123\"}";
+        test.run("GET /categories?includeTotal", concurrency, seconds,
+                () -> test.get("/categories?limit=50&includeTotal=true", token));
+        test.run("GET /categories/tree", concurrency, seconds,
+                () -> test.get("/categories/tree", token));
+        test.run("POST /auth/login", concurrency, seconds,
+                () -> test.post("/auth/login", loginBody, null));
+        System.exit(0);
+    }
+
+    private void run(String name, int concurrency, int seconds, Call call) throws Exception {
+        // Warm-up pass so JIT and pools are settled before measuring
+        measure(concurrency, Math.max(2, seconds / 4), call);
+        Result result = measure(concurrency, seconds, call);
+        long[] latencies = result.latencies();
+        Arrays.sort(latencies);
+        System.out.printf("%-32s %5d clients  %8.0f req/s  p50 %7.1f ms  p99 %7.1f ms  errors %d%n",
+                name, concurrency, latencies.length / (double) seconds,
+                percentile(latencies, 0.50), percentile(latencies, 0.99), result.errors());
+    }
+
+    private Result measure(int concurrency, int seconds, Call call) throws Exception {
+        long deadline = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+        ExecutorService clients = Executors.newFixedThreadPool(concurrency);
+        List<Future<Result>> futures = new ArrayList<>();
+        for (int i = 0; i < concurrency; i++) {
+            futures.add(clients.submit(() -> {
+                long[] samples = new long[1024];
+                int count = 0;
+                long errors = 0;
+                while (System.nanoTime() < deadline) {
+                    long start = System.nanoTime();
+                    int status;
+                    try {
+                        status = call.send();
+                    } catch (Exception e) {
+                        status = -1;
+                    }
+                    if (status / 100 != 2) {
+                        errors++;
+                        continue;
+                    }
+                    if (count == samples.length) {
+                        samples = Arrays.copyOf(samples, count * 2);
+                    }
+                    samples[count++] = System.nanoTime() - start;
+                }
+                return new Result(Arrays.copyOf(samples, count), errors);
+            }));
+        }
+        List<Result> results = new ArrayList<>();
+        for (Future<Result> future : futures) {
+            results.add(future.get());
+        }
+        clients.shutdown();
+
+        long[] latencies = new long[results.stream().mapToInt(r -> r.latencies().length).sum()];
+        long errors = 0;
+        int offset = 0;
+        for (Result result : results) {
+            System.arraycopy(result.latencies(), 0, latencies, offset, result.latencies().length);
+            offset += result.latencies().length;
+            errors += result.errors();
+        }
+        return new Result(latencies, errors);
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return Double.NaN;
+        }
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1_000_000.0;
+    }
+
+    private String createUser(String email, String password) throws Exception {
+        String phone = String.valueOf(System.nanoTime()).substring(0, 12);
+        post("/auth/register", "{\"email\":\"" + email + "\",\"phone\":\"" + phone + "\",\"password\":\""
+                + password + "\",\"fullName\":\"Load Test\",\"role\":\"ADMIN\"}", null);
+        String otp = extract(OTP, send(json("/auth/send-otp",
+                "{\"identifier\":\"" + email + "\",\"otpType\":\"VERIFY_EMAIL\"}", null)).body());
+        post("/auth/verify-email", "{\"identifier\":\"" + email + "\",\"otp\":\"" + otp + "\"}", null);
+        return extract(TOKEN, send(json("/auth/login",
+                "{\"identifier\":\"" + email + "\",\"password\":\"" + password + "\"}", null)).body());
+    }
+
+    private void seedCategories(String token, int count) throws Exception {
+        StringBuilder rows = new StringBuilder();
+        String run = UUID.randomUUID().toString().substring(0, 8);
+        for (int i = 0; i < count; i++) {
+            rows.append("{\"name\":\"Load ").append(run).append(' ').append(i).append("\"}\n");
+        }
+        HttpResponse<String> response = send(HttpRequest.newBuilder(URI.create(baseUrl + "/categories/import"))
+                .header("Authorization", "Bearer " + token)
+                .header("Content-Type", "application/x-ndjson")
+                .POST(HttpRequest.BodyPublishers.ofString(rows.toString()))
+                .build());
+        if (response.statusCode() / 100 != 2) {
+            throw new IllegalStateException("Seeding categories failed: " + response.body());
+        }
+    }
+
+    private int get(String path, String token) throws Exception {
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Authorization", "Bearer " + token)
+                .GET()
+                .build()).statusCode();
+    }
+
+    private int post(String path, String body, String token) throws Exception {
+        return send(json(path, body, token)).statusCode();
+    }
+
+    private HttpRequest json(String path, String body, String token) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body));
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder.build();
+    }
+
+    private HttpResponse<String> send(HttpRequest request) throws Exception {
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static String extract(Pattern pattern, String body) {
+        Matcher matcher = pattern.matcher(body);
+        if (!matcher.find()) {
+            throw new IllegalStateException("Unexpected response: " + body);
+        }
+        return matcher.group(1);
+    }
+
+    @FunctionalInterface
+    private interface Call {
+        int send() throws Exception;
+    }
+
+    private record Result(long[] latencies, long errors) {
+    }
+}
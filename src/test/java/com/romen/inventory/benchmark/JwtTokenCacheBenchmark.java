@@ -0,0 +1,114 @@
+package com.romen.inventory.benchmark;
+
+import com.romen.inventory.entity.User;
+import com.romen.inventory.security.TokenRevocationStore;
+import com.romen.inventory.service.JwtService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Verification cost per request with and without the verified-token cache.
+ * Requests are drawn from a Zipf(1.1) distribution over the active sessions,
+ * which matches a frontend that replays each session's token many times.
+ *
+ * Run with:
+ * mvn test-compile exec:java -Dexec.classpathScope=test
+ *     -Dexec.mainClass=com.romen.inventory.benchmark.JwtTokenCacheBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class JwtTokenCacheBenchmark {
+
+    private static final int REQUESTS = 1 << 16;
+
+    @Param({"false", "true"})
+    public boolean cacheEnabled;
+
+    @Param({"1000"})
+    public int activeSessions;
+
+    private JwtService jwtService;
+    private String[] requests;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Setup
+    public void setUp() {
+        jwtService = new JwtService(new TokenRevocationStore("", 1000), new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(jwtService, "secretKey", JwtVerificationBenchmark.SECRET);
+        ReflectionTestUtils.setField(jwtService, "jwtExpiration", 86400000L);
+        ReflectionTestUtils.setField(jwtService, "refreshExpiration", 604800000L);
+        ReflectionTestUtils.setField(jwtService, "verifiedCacheEnabled", cacheEnabled);
+        ReflectionTestUtils.setField(jwtService, "verifiedCacheMaximumSize", 50000L);
+        ReflectionTestUtils.invokeMethod(jwtService, "init");
+
+        String[] tokens = new String[activeSessions];
+        for (int i = 0; i < activeSessions; i++) {
+            tokens[i] = jwtService.generateToken(User.builder()
+                    .id((long) i)
+                    .email("user" + i + "@example.com")
+                    .phone("98765" + String.format("%05d", i))
+                    .fullName("User " + i)
+                    .role(User.Role.EMPLOYEE)
+                    .isActive(true)
+                    .isEmailVerified(true)
+                    .otpAttempts(0)
+                    .build());
+        }
+
+        requests = new String[REQUESTS];
+        double[] cumulative = zipfCumulative(activeSessions, 1.1);
+        Random random = new Random(42);
+        for (int i = 0; i < REQUESTS; i++) {
+            requests[i] = tokens[sample(cumulative, random.nextDouble())];
+        }
+    }
+
+    @Benchmark
+    public Object verify(Cursor cursor) {
+        String token = requests[cursor.next++ & (REQUESTS - 1)];
+        return jwtService.verify(token);
+    }
+
+    private static double[] zipfCumulative(int n, double exponent) {
+        double[] cumulative = new double[n];
+        double sum = 0;
+        for (int k = 1; k <= n; k++) {
+            sum += 1.0 / Math.pow(k, exponent);
+            cumulative[k - 1] = sum;
+        }
+        for (int k = 0; k < n; k++) {
+            cumulative[k] /= sum;
+        }
+        return cumulative;
+    }
+
+    private static int sample(double[] cumulative, double u) {
+        int index = Arrays.binarySearch(cumulative, u);
+        return index >= 0 ? index : Math.min(-index - 1, cumulative.length - 1);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(JwtTokenCacheBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
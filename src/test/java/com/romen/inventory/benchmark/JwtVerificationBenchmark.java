@@ -0,0 +1,96 @@
+package com.romen.inventory.benchmark;
+
+import com.romen.inventory.entity.User;
+import com.romen.inventory.security.TokenRevocationStore;
+import com.romen.inventory.security.VerifiedToken;
+import com.romen.inventory.service.JwtService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.SecretKey;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the per-request cost of the old verification path (three parses,
+ * parser and key rebuilt each time) with {@link JwtService#verify(String)}.
+ *
+ * Run with:
+ * mvn test-compile exec:java -Dexec.classpathScope=test
+ *     -Dexec.mainClass=com.romen.inventory.benchmark.JwtVerificationBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtVerificationBenchmark {
+
+    static final String SECRET = "404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970";
+
+    private JwtService jwtService;
+    private User user;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtService = newJwtService();
+        user = User.builder()
+                .id(1L)
+                .email("baker@example.com")
+                .phone("9876543210")
+                .role(User.Role.EMPLOYEE)
+                .build();
+        token = jwtService.generateToken(user);
+    }
+
+    @Benchmark
+    public boolean legacyThreeParses() {
+        // extractUsername, then isTokenValid -> extractUsername + isTokenExpired
+        String username = legacyClaims(token).getSubject();
+        boolean valid = legacyClaims(token).getSubject().equals(username)
+                && !legacyClaims(token).getExpiration().before(new Date());
+        return valid && username.equals(user.getUsername());
+    }
+
+    @Benchmark
+    public boolean parseOnce() {
+        VerifiedToken verified = jwtService.verify(token);
+        return jwtService.isTokenValid(verified, user);
+    }
+
+    static JwtService newJwtService() {
+        JwtService service = new JwtService(new TokenRevocationStore("", 1000), new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "secretKey", SECRET);
+        ReflectionTestUtils.setField(service, "jwtExpiration", 86400000L);
+        ReflectionTestUtils.setField(service, "refreshExpiration", 604800000L);
+        ReflectionTestUtils.invokeMethod(service, "init");
+        return service;
+    }
+
+    private static Claims legacyClaims(String token) {
+        SecretKey key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET));
+        return Jwts.parser()
+                .verifyWith(key)
+                .build()
+                .parseSignedClaims(token)
+                .getPayload();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(JwtVerificationBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
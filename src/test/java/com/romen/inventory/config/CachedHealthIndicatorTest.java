@@ -0,0 +1,44 @@
+package com.romen.inventory.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CachedHealthIndicatorTest {
+
+    @Test
+    void probesDuringASlowRefreshGetThePreviousResult() throws Exception {
+        CountDownLatch refreshing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger checks = new AtomicInteger();
+        CachedHealthIndicator indicator = new CachedHealthIndicator(Duration.ofNanos(1)) {
+            @Override
+            protected Health check() throws Exception {
+                if (checks.incrementAndGet() == 1) {
+                    return Health.up().build();
+                }
+                refreshing.countDown();
+                release.await(5, TimeUnit.SECONDS);
+                return Health.down().build();
+            }
+        };
+        assertThat(indicator.health().getStatus()).isEqualTo(Status.UP);
+
+        CompletableFuture<Health> slow = CompletableFuture.supplyAsync(indicator::health);
+        assertThat(refreshing.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(indicator.health().getStatus()).isEqualTo(Status.UP);
+        assertThat(checks.get()).isEqualTo(2);
+
+        release.countDown();
+        assertThat(slow.get(5, TimeUnit.SECONDS).getStatus()).isEqualTo(Status.DOWN);
+    }
+}
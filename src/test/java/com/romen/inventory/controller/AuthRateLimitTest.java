@@ -0,0 +1,61 @@
+package com.romen.inventory.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "app.rate-limit.login.per-ip=4",
+        "app.rate-limit.login.per-identifier=2",
+        "app.rate-limit.login.period=1h"
+})
+@AutoConfigureMockMvc
+class AuthRateLimitTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void limitsRepeatedLoginsForOneIdentifier() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(login("10.0.0.1", "Victim@example.com"))
+                    .andExpect(status().isUnauthorized());
+        }
+        // Same account from another address, normalised identifier
+        mockMvc.perform(login("10.0.0.2", " victim@example.com"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1800"));
+    }
+
+    @Test
+    void limitsOneAddressSprayingManyIdentifiers() throws Exception {
+        for (int i = 0; i < 4; i++) {
+            mockMvc.perform(login("10.0.0.3", "spray" + i + "@example.com"))
+                    .andExpect(status().isUnauthorized());
+        }
+        mockMvc.perform(login("10.0.0.3", "spray4@example.com"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists(HttpHeaders.RETRY_AFTER));
+        mockMvc.perform(login("10.0.0.4", "spray4@example.com"))
+                .andExpect(status().isUnauthorized());
+    }
+
+    private MockHttpServletRequestBuilder login(String clientIp, String identifier) {
+        return post("/api/auth/login")
+                .with(request -> {
+                    request.setRemoteAddr(clientIp);
+                    return request;
+                })
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"identifier\":\"" + identifier + "\",\"password\":\"wrong-password\"}");
+    }
+}
@@ -0,0 +1,83 @@
+package com.romen.inventory.controller;
+
+import com.romen.inventory.config.CachedHealthIndicator;
+import com.romen.inventory.config.UploadStorageHealthIndicator;
+import com.romen.inventory.service.FileStorageService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "app.upload-dir=target/test-uploads")
+@AutoConfigureMockMvc
+class HealthProbeTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Test
+    void probesAreOpenToTheLoadBalancer() throws Exception {
+        mockMvc.perform(get("/actuator/health/liveness"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("UP"));
+        mockMvc.perform(get("/actuator/health/readiness"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("UP"))
+                .andExpect(jsonPath("$.components").doesNotExist());
+        mockMvc.perform(get("/api/health"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("UP"));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void readinessChecksEveryDependency() throws Exception {
+        mockMvc.perform(get("/actuator/health/readiness"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.components.database.status").value("UP"))
+                .andExpect(jsonPath("$.components.connectionPool.status").value("UP"))
+                .andExpect(jsonPath("$.components.uploadStorage.status").value("UP"))
+                .andExpect(jsonPath("$.components.catalog.status").value("UP"));
+    }
+
+    @Test
+    void reportsAFullUploadVolumeAsDown() {
+        UploadStorageHealthIndicator indicator = new UploadStorageHealthIndicator(
+                fileStorageService, Duration.ZERO, DataSize.ofTerabytes(1_000_000));
+
+        assertThat(indicator.health().getStatus()).isEqualTo(Status.DOWN);
+    }
+
+    @Test
+    void reusesResultsWithinTheTimeToLive() {
+        AtomicInteger checks = new AtomicInteger();
+        CachedHealthIndicator indicator = new CachedHealthIndicator(Duration.ofMinutes(1)) {
+            @Override
+            protected Health check() {
+                checks.incrementAndGet();
+                return Health.up().build();
+            }
+        };
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(indicator.health().getStatus()).isEqualTo(Status.UP);
+        }
+        assertThat(checks).hasValue(1);
+    }
+}
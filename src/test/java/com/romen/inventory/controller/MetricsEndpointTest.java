@@ -0,0 +1,54 @@
+package com.romen.inventory.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+class MetricsEndpointTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void exposesPerRequestSqlAndHandlerLatencyForScraping() throws Exception {
+        mockMvc.perform(get("/api/categories").param("includeTotal", "true"))
+                .andExpect(status().isOk());
+
+        String scrape = mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(scrape)
+                .contains("http_server_requests_sql_statements_count{method=\"GET\",uri=\"/api/categories\",}")
+                .contains("http_server_requests_sql_duration_seconds_bucket{method=\"GET\",uri=\"/api/categories\"")
+                .contains("handler=\"CategoryController#getAllCategories\"")
+                .contains("http_server_requests_seconds_bucket{")
+                .contains("hikaricp_connections_acquire_seconds_bucket{")
+                .contains("hibernate_statements_total");
+    }
+
+    @Test
+    void anonymousCallersCannotScrape() throws Exception {
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @WithMockUser(roles = "EMPLOYEE")
+    void employeesCannotScrape() throws Exception {
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isForbidden());
+    }
+}
@@ -0,0 +1,129 @@
+package com.romen.inventory.security;
+
+import com.romen.inventory.dto.LoginRequest;
+import com.romen.inventory.entity.User;
+import com.romen.inventory.exception.ServiceBusyException;
+import com.romen.inventory.repository.UserRepository;
+import com.romen.inventory.service.AuthService;
+import com.romen.inventory.service.CustomUserDetailsService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class BoundedPasswordEncoderTest {
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private CustomUserDetailsService userDetailsService;
+
+    @Test
+    void loginRehashesLegacyAndWeakHashes() {
+        String email = "rehash-" + UUID.randomUUID().toString().substring(0, 8) + "@example.com";
+        User user = userRepository.save(User.builder()
+                .email(email)
+                .phone(String.valueOf(System.nanoTime()).substring(0, 12))
+                .password(new BCryptPasswordEncoder(4).encode("secret123"))
+                .fullName("Rehash")
+                .role(User.Role.EMPLOYEE)
+                .isActive(true)
+                .isEmailVerified(true)
+                .isPhoneVerified(false)
+                .securityVersion(0L)
+                .build());
+
+        LoginRequest request = new LoginRequest();
+        request.setIdentifier(email);
+        request.setPassword("secret123");
+        authService.authenticate(request);
+
+        String upgraded = userRepository.findById(user.getId()).orElseThrow().getPassword();
+        assertThat(upgraded).startsWith("{bcrypt}$2a$10$");
+        assertThat(passwordEncoder.upgradeEncoding(upgraded)).isFalse();
+
+        // The new hash keeps working, and the version bump that would log the user out did not happen
+        authService.authenticate(request);
+        assertThat(userRepository.findById(user.getId()).orElseThrow().getSecurityVersion()).isZero();
+    }
+
+    @Test
+    void staleUpgradeDoesNotOverwriteANewerPassword() {
+        String email = "stale-" + UUID.randomUUID().toString().substring(0, 8) + "@example.com";
+        User user = userRepository.save(User.builder()
+                .email(email)
+                .phone(String.valueOf(System.nanoTime()).substring(0, 12))
+                .password(new BCryptPasswordEncoder(4).encode("secret123"))
+                .fullName("Stale")
+                .role(User.Role.EMPLOYEE)
+                .isActive(true)
+                .isEmailVerified(true)
+                .isPhoneVerified(false)
+                .build());
+        User loaded = (User) userDetailsService.loadUserByUsername(email);
+        String loginHash = loaded.getPassword();
+
+        // Password changed between the login's check and its rehash
+        String changed = passwordEncoder.encode("changed456");
+        user.setPassword(changed);
+        userRepository.save(user);
+
+        userDetailsService.updatePassword(loaded, passwordEncoder.encode("secret123"));
+
+        assertThat(userRepository.findById(user.getId()).orElseThrow().getPassword()).isEqualTo(changed);
+        assertThat(loaded.getPassword()).isEqualTo(loginHash);
+    }
+
+    @Test
+    void shedsWorkBeyondThePoolAndQueue() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordEncoder slow = new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return rawPassword.toString();
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                return encode(rawPassword).equals(encodedPassword);
+            }
+        };
+
+        try (BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(
+                slow, 1, 1, Duration.ofSeconds(5), new SimpleMeterRegistry())) {
+            CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> encoder.encode("a"));
+            CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> encoder.encode("b"));
+            Thread.sleep(200);
+
+            assertThatThrownBy(() -> encoder.encode("c")).isInstanceOf(ServiceBusyException.class);
+
+            release.countDown();
+            assertThat(running.get(5, TimeUnit.SECONDS)).isEqualTo("a");
+            assertThat(queued.get(5, TimeUnit.SECONDS)).isEqualTo("b");
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.romen.inventory.security;
+
+import com.romen.inventory.entity.User;
+import com.romen.inventory.repository.UserRepository;
+import com.romen.inventory.service.JwtService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class JwtAuthenticationFilterTest {
+
+    private static final String SECRET = "404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970";
+
+    private JwtService jwtService;
+    private UserDetailsService userDetailsService;
+    private UserSecurityVersions securityVersions;
+    private JwtAuthenticationFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        jwtService = new JwtService(new TokenRevocationStore("", 1000), new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(jwtService, "secretKey", SECRET);
+        ReflectionTestUtils.setField(jwtService, "jwtExpiration", 86400000L);
+        ReflectionTestUtils.setField(jwtService, "refreshExpiration", 604800000L);
+        ReflectionTestUtils.invokeMethod(jwtService, "init");
+        userDetailsService = mock(UserDetailsService.class);
+        securityVersions = new UserSecurityVersions(mock(UserRepository.class));
+        filter = new JwtAuthenticationFilter(jwtService, userDetailsService, securityVersions, true);
+    }
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void currentTokenAuthenticatesFromClaimsAlone() throws Exception {
+        String token = jwtService.generateToken(user(0L));
+
+        Authentication authentication = filter(token);
+
+        assertNotNull(authentication);
+        User principal = (User) authentication.getPrincipal();
+        assertEquals(7L, principal.getId());
+        assertEquals("baker@example.com", principal.getUsername());
+        verify(userDetailsService, never()).loadUserByUsername(anyString());
+    }
+
+    @Test
+    void staleTokenFallsBackToTheDatabaseAndIsRejected() throws Exception {
+        String token = jwtService.generateToken(user(0L));
+        // Password changed after the token was issued
+        securityVersions.update(7L, 1L);
+        when(userDetailsService.loadUserByUsername("baker@example.com")).thenReturn(user(1L));
+
+        Authentication authentication = filter(token);
+
+        assertNull(authentication);
+        verify(userDetailsService).loadUserByUsername("baker@example.com");
+    }
+
+    private Authentication filter(String token) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/products");
+        request.addHeader("Authorization", "Bearer " + token);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+
+    private static User user(long securityVersion) {
+        return User.builder()
+                .id(7L)
+                .email("baker@example.com")
+                .phone("9876543210")
+                .fullName("Baker")
+                .role(User.Role.EMPLOYEE)
+                .isActive(true)
+                .isEmailVerified(true)
+                .securityVersion(securityVersion)
+                .build();
+    }
+}
@@ -0,0 +1,55 @@
+package com.romen.inventory.security;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenRevocationStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void revocationsSurviveRestartUntilTokenExpiry() throws Exception {
+        Path log = tempDir.resolve("revoked.log");
+        long now = System.currentTimeMillis();
+
+        TokenRevocationStore store = new TokenRevocationStore(log.toString(), 1000);
+        store.replay();
+        store.revoke("live-token", now + 60_000);
+        store.close();
+
+        // An entry that expired while the node was down must not come back
+        Files.writeString(log, "expired-token," + (now - 1) + System.lineSeparator(),
+                StandardOpenOption.APPEND);
+
+        TokenRevocationStore restarted = new TokenRevocationStore(log.toString(), 1000);
+        restarted.replay();
+
+        assertTrue(restarted.isRevoked("live-token"));
+        assertFalse(restarted.isRevoked("expired-token"));
+        assertFalse(restarted.isRevoked("never-revoked"));
+        assertEquals(1, restarted.size());
+        restarted.close();
+    }
+
+    @Test
+    void purgeDropsEntriesOnceTheTokenWouldHaveExpired() throws Exception {
+        TokenRevocationStore store = new TokenRevocationStore("", 1000);
+        store.revoke("short-lived", System.currentTimeMillis() + 50);
+        assertTrue(store.isRevoked("short-lived"));
+
+        Thread.sleep(100);
+        store.purgeExpired();
+
+        assertFalse(store.isRevoked("short-lived"));
+        assertEquals(0, store.size());
+    }
+}
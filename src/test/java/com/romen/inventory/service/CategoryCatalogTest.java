@@ -0,0 +1,63 @@
+package com.romen.inventory.service;
+
+import com.romen.inventory.dto.CategoryNode;
+import com.romen.inventory.repository.CategoryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CategoryCatalogTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2026, 1, 1, 9, 0);
+
+    private CategoryRepository categoryRepository;
+    private CategorySearchIndex searchIndex;
+    private CategoryCatalog catalog;
+
+    @BeforeEach
+    void setUp() {
+        categoryRepository = mock(CategoryRepository.class);
+        searchIndex = new CategorySearchIndex();
+        catalog = new CategoryCatalog(categoryRepository, searchIndex);
+        when(categoryRepository.findAllNodes()).thenReturn(List.of(node(1L, "Bread", T0)));
+        catalog.reload();
+    }
+
+    @Test
+    void deltaDeliveredOutOfCommitOrderDoesNotRevertANewerOne() {
+        catalog.upsertAfterCommit(node(1L, "Sourdough", T0.plusMinutes(2)));
+        catalog.upsertAfterCommit(node(1L, "Rye", T0.plusMinutes(1)));
+
+        assertThat(catalog.snapshot().get(1L).getName()).isEqualTo("Sourdough");
+        assertThat(searchIndex.search("rye", node -> true, null, 10).ids()).isEmpty();
+        assertThat(searchIndex.search("sourdough", node -> true, null, 10).ids()).containsExactly(1L);
+    }
+
+    @Test
+    void lateUpsertDoesNotResurrectARemovedCategory() {
+        catalog.removeAfterCommit(1L);
+        catalog.upsertAfterCommit(node(1L, "Bread", T0.plusMinutes(1)));
+
+        assertThat(catalog.snapshot().get(1L)).isNull();
+        assertThat(searchIndex.size()).isZero();
+    }
+
+    private static CategoryNode node(Long id, String name, LocalDateTime updatedAt) {
+        return CategoryNode.builder()
+                .id(id)
+                .name(name)
+                .path("/" + id + "/")
+                .depth(0)
+                .displayOrder(0)
+                .isActive(true)
+                .createdAt(T0)
+                .updatedAt(updatedAt)
+                .build();
+    }
+}
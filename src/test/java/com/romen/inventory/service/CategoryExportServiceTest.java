@@ -0,0 +1,82 @@
+package com.romen.inventory.service;
+
+import com.romen.inventory.entity.Category;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// The outbox poller would add its claim statement to whichever read it overlaps
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "app.mail.outbox.poll-interval-ms=3600000"
+})
+class CategoryExportServiceTest extends CategoryTestSupport {
+
+    @Autowired
+    private CategoryExportService categoryExportService;
+
+    @Autowired
+    private CategoryCatalog categoryCatalog;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Category root;
+
+    @BeforeEach
+    void setUp() {
+        root = seed(null, "Root");
+    }
+
+    @Test
+    void exportStreamsTheCatalogInOneStatement() throws IOException {
+        for (int i = 0; i < 30; i++) {
+            Category level1 = seed(root, "Branch " + i);
+            Category level2 = seed(level1, "Leaf " + i);
+            seed(level2, "Twig " + i);
+        }
+        categoryCatalog.reload();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        statistics.clear();
+        categoryExportService.export(CategoryExportService.Format.CSV, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(1 + 1 + 90, lines.length);
+        assertTrue(lines[lines.length - 1].contains(",Root > Branch "));
+    }
+
+    @Test
+    void csvNeutralizesFormulaCells() throws IOException {
+        seed(root, "=HYPERLINK(\"http://example.com\")", "@SUM(A1)");
+        seed(root, "+1 Rolls", "-2 days");
+        categoryCatalog.reload();
+
+        String csv = export(CategoryExportService.Format.CSV);
+        assertTrue(csv.contains(",\"'=HYPERLINK(\"\"http://example.com\"\")\",'@SUM(A1),"));
+        assertTrue(csv.contains(",'+1 Rolls,'-2 days,"));
+
+        String ndjson = export(CategoryExportService.Format.NDJSON);
+        assertTrue(ndjson.contains("\"name\":\"+1 Rolls\""));
+        assertTrue(ndjson.contains("\"description\":\"-2 days\""));
+    }
+
+    private String export(CategoryExportService.Format format) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        categoryExportService.export(format, out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
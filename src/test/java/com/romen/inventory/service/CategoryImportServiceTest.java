@@ -0,0 +1,84 @@
+package com.romen.inventory.service;
+
+import com.romen.inventory.dto.CategoryImportReport;
+import com.romen.inventory.dto.CategoryNode;
+import com.romen.inventory.entity.Category;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "app.catalog.import.batch-size=2")
+class CategoryImportServiceTest extends CategoryTestSupport {
+
+    @Autowired
+    private CategoryImportService categoryImportService;
+
+    @Autowired
+    private CategoryCatalog categoryCatalog;
+
+    @BeforeEach
+    void seedRoot() {
+        seed(null, "Bakery");
+        categoryCatalog.reload();
+    }
+
+    @Test
+    void importsHierarchyAndReportsEachRow() throws IOException {
+        String csv = """
+                name,description,parentPath,expiryDays
+                Sourdough,"Long ferment, ""country"" style",Bakery > Bread,5
+                Bread,,Bakery,
+                Cakes,,,2
+                Cakes,,,
+                Bread,,Bakery,
+                Cupcakes,,Cakes,
+                Orphan,,Missing > Parent,
+                ,,Bakery,
+                """;
+
+        CategoryImportReport report = categoryImportService.importCategories(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), CategoryImportService.Format.CSV, creator);
+
+        assertThat(report.getTotal()).isEqualTo(8);
+        assertThat(report.getCreated()).isEqualTo(4);
+        List<CategoryImportReport.RowResult> rows = report.getRows();
+        assertThat(rows).extracting(CategoryImportReport.RowResult::getStatus).containsExactly(
+                CategoryImportReport.Status.CREATED, CategoryImportReport.Status.CREATED,
+                CategoryImportReport.Status.CREATED, CategoryImportReport.Status.FAILED,
+                CategoryImportReport.Status.FAILED, CategoryImportReport.Status.CREATED,
+                CategoryImportReport.Status.FAILED, CategoryImportReport.Status.FAILED);
+        assertThat(rows.get(3).getMessage()).isEqualTo("Duplicate of row 3");
+        assertThat(rows.get(6).getMessage()).startsWith("Parent category not found");
+
+        CategoryNode sourdough = categoryCatalog.snapshot().get(rows.get(0).getId());
+        CategoryNode bread = categoryCatalog.snapshot().get(rows.get(1).getId());
+        assertThat(sourdough.getParentId()).isEqualTo(bread.getId());
+        assertThat(sourdough.getDepth()).isEqualTo(2);
+        assertThat(sourdough.getPath()).isEqualTo(bread.getPath() + sourdough.getId() + "/");
+        assertThat(sourdough.getDescription()).isEqualTo("Long ferment, \"country\" style");
+        assertThat(sourdough.getExpiryDays()).isEqualTo(5);
+    }
+
+    @Test
+    void rejectsNamesThatAlreadyExistUnderTheSameParent() throws IOException {
+        String json = """
+                [{"name": "Bakery"}, {"name": "Rolls", "parent": "Bakery", "isActive": false}]
+                """;
+
+        CategoryImportReport report = categoryImportService.importCategories(
+                new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), CategoryImportService.Format.JSON, creator);
+
+        assertThat(report.getRows().get(0).getMessage()).isEqualTo("Category with this name already exists");
+        CategoryNode rolls = categoryCatalog.snapshot().get(report.getRows().get(1).getId());
+        assertThat(rolls.getIsActive()).isFalse();
+        assertThat(rolls.getDepth()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,70 @@
+package com.romen.inventory.service;
+
+import com.romen.inventory.dto.CategoryNode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CategorySearchIndexTest {
+
+    private CategorySearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new CategorySearchIndex();
+        index.rebuild(List.of(
+                node(1L, "Dairy Products", "Milk, cheese and yogurt", "/1/"),
+                node(2L, "Cheese", "Hard and soft cheeses", "/1/2/"),
+                node(3L, "Frozen Foods", "Ice cream and frozen dairy desserts", "/3/"),
+                node(4L, "Beverages", "Soft drinks and juices", "/4/")));
+    }
+
+    @Test
+    void matchesPrefixInfixAndTypos() {
+        assertThat(index.search("bev", node -> true, null, 10).ids()).containsExactly(4L);
+        assertThat(index.search("erage", node -> true, null, 10).ids()).containsExactly(4L);
+        assertThat(index.search("cheeze", node -> true, null, 10).ids()).containsExactly(2L, 1L);
+        assertThat(index.search("frozen dairy", node -> true, null, 10).ids()).containsExactly(3L);
+        assertThat(index.search("xyz", node -> true, null, 10).ids()).isEmpty();
+    }
+
+    @Test
+    void ranksNameMatchesAboveDescriptionMatches() {
+        assertThat(index.search("dairy", node -> true, null, 10).ids()).containsExactly(1L, 3L);
+    }
+
+    @Test
+    void pagesThroughRankedHitsAfterTheCursor() {
+        CategorySearchIndex.Result first = index.search("cheese", node -> true, null, 1);
+        CategorySearchIndex.Result second = index.search("cheese", node -> true, first.ids().get(0), 1);
+
+        assertThat(first.ids()).containsExactly(2L);
+        assertThat(second.ids()).containsExactly(1L);
+        assertThat(second.total()).isEqualTo(2);
+    }
+
+    @Test
+    void followsUpsertsAndRemovals() {
+        index.upsert(node(4L, "Drinks", "Soft drinks and juices", "/4/"));
+        index.remove(2L);
+
+        assertThat(index.search("beverages", node -> true, null, 10).ids()).isEmpty();
+        assertThat(index.search("drinks", node -> true, null, 10).ids()).containsExactly(4L);
+        assertThat(index.search("cheese", node -> true, null, 10).ids()).containsExactly(1L);
+        assertThat(index.size()).isEqualTo(3);
+    }
+
+    private static CategoryNode node(Long id, String name, String description, String path) {
+        return CategoryNode.builder()
+                .id(id)
+                .name(name)
+                .description(description)
+                .path(path)
+                .displayOrder(0)
+                .isActive(true)
+                .build();
+    }
+}
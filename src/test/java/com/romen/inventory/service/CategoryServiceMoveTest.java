@@ -0,0 +1,58 @@
+package com.romen.inventory.service;
+
+import com.romen.inventory.dto.CategoryRequest;
+import com.romen.inventory.entity.Category;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+class CategoryServiceMoveTest extends CategoryTestSupport {
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Test
+    void movingACategoryReRootsItsWholeSubtree() {
+        Long bakery = create("Bakery", null);
+        Long breads = create("Breads", bakery);
+        Long sourdough = create("Sourdough", breads);
+        Long pantry = create("Pantry", null);
+
+        categoryService.updateCategory(breads, request("Breads", pantry));
+
+        Category movedChild = categoryRepository.findById(sourdough).orElseThrow();
+        assertEquals("/" + pantry + "/" + breads + "/" + sourdough + "/", movedChild.getPath());
+        assertEquals(2, movedChild.getDepth());
+        assertEquals(pantry, categoryService.getCategoryById(breads).getParentId());
+        assertEquals(0, categoryRepository.countDescendants("/" + bakery + "/"));
+    }
+
+    @Test
+    void movingACategoryUnderItsOwnDescendantIsRejected() {
+        Long bakery = create("Bakery", null);
+        Long breads = create("Breads", bakery);
+        Long sourdough = create("Sourdough", breads);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> categoryService.updateCategory(bakery, request("Bakery", sourdough)));
+
+        Category unchanged = categoryRepository.findById(bakery).orElseThrow();
+        assertEquals("/" + bakery + "/", unchanged.getPath());
+        assertEquals(2, categoryRepository.countDescendants("/" + bakery + "/"));
+    }
+
+    private Long create(String name, Long parentId) {
+        return categoryService.createCategory(request(name, parentId), creator).getId();
+    }
+
+    private static CategoryRequest request(String name, Long parentId) {
+        CategoryRequest request = new CategoryRequest();
+        request.setName(name);
+        request.setParentId(parentId);
+        return request;
+    }
+}
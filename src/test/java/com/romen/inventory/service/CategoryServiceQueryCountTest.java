@@ -0,0 +1,90 @@
+package com.romen.inventory.service;
+
+import com.romen.inventory.dto.CursorPage;
+import com.romen.inventory.entity.Category;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Guards against N+1 regressions: the number of SQL statements per read
+ * must not depend on how many categories exist. The outbox poller is pushed
+ * out so its claim statement never lands inside a measured read.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "app.mail.outbox.poll-interval-ms=3600000"
+})
+class CategoryServiceQueryCountTest extends CategoryTestSupport {
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private Category root;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        root = seed(null, "Root");
+    }
+
+    @Test
+    void getAllCategoriesUsesConstantStatements() {
+        growCatalog(3);
+        long small = statementsFor(() -> categoryService.getAllCategories(null, CursorPage.MAX_LIMIT, false));
+
+        growCatalog(30);
+        long large = statementsFor(() -> categoryService.getAllCategories(null, CursorPage.MAX_LIMIT, false));
+
+        assertEquals(small, large);
+        assertEquals(1, large);
+    }
+
+    @Test
+    void followingPagesAddOnlyTheCursorLookup() {
+        growCatalog(30);
+        Long cursor = categoryService.getAllCategories(null, 10, false).getNextCursor();
+
+        long statements = statementsFor(() -> categoryService.getAllCategories(cursor, 10, true));
+
+        // cursor sort key, page, total count
+        assertEquals(3, statements);
+    }
+
+    @Test
+    void getCategoryByIdUsesConstantStatements() {
+        growCatalog(3);
+        long small = statementsFor(() -> categoryService.getCategoryById(root.getId()));
+
+        growCatalog(30);
+        long large = statementsFor(() -> categoryService.getCategoryById(root.getId()));
+
+        assertEquals(small, large);
+        assertEquals(2, large);
+    }
+
+    // Adds branches of depth three under the root, each with a creator and a parent to resolve
+    private void growCatalog(int branches) {
+        for (int i = 0; i < branches; i++) {
+            Category level1 = seed(root, "Branch " + System.nanoTime());
+            Category level2 = seed(level1, "Leaf " + System.nanoTime());
+            seed(level2, "Twig " + System.nanoTime());
+        }
+    }
+
+    private long statementsFor(Runnable read) {
+        statistics.clear();
+        read.run();
+        return statistics.getPrepareStatementCount();
+    }
+}
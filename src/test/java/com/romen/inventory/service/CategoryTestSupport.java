@@ -0,0 +1,61 @@
+package com.romen.inventory.service;
+
+import com.romen.inventory.entity.Category;
+import com.romen.inventory.entity.User;
+import com.romen.inventory.repository.CategoryRepository;
+import com.romen.inventory.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Shared fixture for tests that work on the category table: every test starts
+ * from an empty table with an admin to own the rows. Subclasses declare their
+ * own {@code @SpringBootTest}.
+ */
+abstract class CategoryTestSupport {
+
+    @Autowired
+    protected CategoryRepository categoryRepository;
+
+    @Autowired
+    protected UserRepository userRepository;
+
+    protected User creator;
+
+    @BeforeEach
+    void resetCategories() {
+        // Newest first, so children go before the parents they reference
+        categoryRepository.deleteAll(categoryRepository.findAll().stream()
+                .sorted((a, b) -> Long.compare(b.getId(), a.getId()))
+                .toList());
+        creator = userRepository.findByEmail("catalog-tests@example.com").orElseGet(() -> userRepository.save(User.builder()
+                .email("catalog-tests@example.com")
+                .phone("9000000001")
+                .password("x")
+                .fullName("Catalog Tests")
+                .role(User.Role.ADMIN)
+                .isActive(true)
+                .isEmailVerified(true)
+                .build()));
+    }
+
+    protected Category seed(Category parent, String name) {
+        return seed(parent, name, null);
+    }
+
+    // Saves straight through the repository, bypassing the service and the catalog
+    protected Category seed(Category parent, String name, String description) {
+        Category category = categoryRepository.save(Category.builder()
+                .name(name)
+                .description(description)
+                .parent(parent)
+                .expiryDays(3)
+                .displayOrder(0)
+                .isActive(true)
+                .createdBy(creator)
+                .build());
+        category.setPath(Category.childPath(parent != null ? parent.getPath() : null, category.getId()));
+        category.setDepth(parent != null ? parent.getDepth() + 1 : 0);
+        return categoryRepository.save(category);
+    }
+}
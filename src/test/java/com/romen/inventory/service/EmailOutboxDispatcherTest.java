@@ -0,0 +1,134 @@
+package com.romen.inventory.service;
+
+import com.icegreen.greenmail.configuration.GreenMailConfiguration;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import com.romen.inventory.entity.EmailOutboxMessage;
+import com.romen.inventory.entity.OtpLog;
+import com.romen.inventory.repository.EmailOutboxRepository;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Own database: cached contexts from other test classes keep polling the shared one without a mail server
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:outbox_dispatcher_test",
+        "spring.mail.host=localhost",
+        "spring.mail.port=3025",
+        "app.mail.outbox.batch-size=2",
+        "app.mail.outbox.initial-backoff=50ms",
+        "app.mail.outbox.max-backoff=50ms",
+        "app.mail.outbox.poll-interval-ms=100"
+})
+class EmailOutboxDispatcherTest {
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP)
+            .withConfiguration(GreenMailConfiguration.aConfig().withDisabledAuthentication());
+
+    @Autowired
+    private OtpService otpService;
+
+    @Autowired
+    private EmailService emailService;
+
+    @Autowired
+    private EmailOutboxRepository emailOutboxRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        emailOutboxRepository.deleteAll();
+    }
+
+    @Test
+    void deliversQueuedMessagesInBatches() throws Exception {
+        String otp = otpService.createOtp("baker@example.com", null, OtpLog.OtpType.VERIFY_EMAIL);
+        emailService.sendWelcomeEmail("baker@example.com", "Baker");
+        emailService.sendPasswordResetEmail("owner@example.com", "Owner");
+
+        assertThat(greenMail.waitForIncomingEmail(5000, 3)).isTrue();
+        MimeMessage[] received = greenMail.getReceivedMessages();
+        assertThat(received).extracting(MimeMessage::getSubject).containsExactlyInAnyOrder(
+                "Your verification code", "Welcome to Bakery Inventory", "Your password was reset");
+        MimeMessage code = Arrays.stream(received)
+                .filter(message -> hasSubject(message, "Your verification code"))
+                .findFirst().orElseThrow();
+        assertThat((String) code.getContent()).contains(otp).contains("verify email").contains("10 minutes");
+
+        awaitStatus(EmailOutboxMessage.Status.SENT, 3);
+        assertThat(emailOutboxRepository.findAll()).extracting(EmailOutboxMessage::getBody).containsOnly("");
+    }
+
+    @Test
+    void retriesUntilTheServerAcceptsTheMessage() throws Exception {
+        greenMail.stop();
+        emailService.sendWelcomeEmail("late@example.com", "Late");
+
+        for (int i = 0; i < 100 && emailOutboxRepository.findAll().get(0).getAttempts() < 2; i++) {
+            Thread.sleep(50);
+        }
+        EmailOutboxMessage pending = emailOutboxRepository.findAll().get(0);
+        assertThat(pending.getStatus()).isEqualTo(EmailOutboxMessage.Status.PENDING);
+        assertThat(pending.getLastError()).isNotBlank();
+
+        greenMail.start();
+        assertThat(greenMail.waitForIncomingEmail(5000, 1)).isTrue();
+        awaitStatus(EmailOutboxMessage.Status.SENT, 1);
+        assertThat(emailOutboxRepository.findAll().get(0).getSentAt()).isBefore(LocalDateTime.now().plusSeconds(1));
+    }
+
+    @Test
+    void outcomesAreIgnoredOnceTheLeaseMovedToAnotherBatch() {
+        LocalDateTime later = LocalDateTime.now().plusDays(1);
+        Long id = emailOutboxRepository.save(EmailOutboxMessage.builder()
+                .recipient("fenced@example.com")
+                .subject("Fenced")
+                .body("Body")
+                .nextAttemptAt(later)
+                .build()).getId();
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status ->
+                emailOutboxRepository.claim(List.of(id), later.plusSeconds(1), later.plusMinutes(2), "current-lease"));
+
+        int stale = tx.execute(status -> emailOutboxRepository.markSent(List.of(id), "expired-lease", later)
+                + emailOutboxRepository.scheduleRetry(id, "expired-lease", 1, "late", later)
+                + emailOutboxRepository.markFailed(id, "expired-lease", 8, "late"));
+        int current = tx.execute(status -> emailOutboxRepository.markSent(List.of(id), "current-lease", later));
+
+        assertThat(stale).isZero();
+        assertThat(current).isEqualTo(1);
+        assertThat(emailOutboxRepository.findById(id).orElseThrow().getStatus())
+                .isEqualTo(EmailOutboxMessage.Status.SENT);
+    }
+
+    // Senders deliver batches in parallel, so arrival order is not the enqueue order
+    private static boolean hasSubject(MimeMessage message, String subject) {
+        try {
+            return subject.equals(message.getSubject());
+        } catch (MessagingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void awaitStatus(EmailOutboxMessage.Status status, long count) throws InterruptedException {
+        for (int i = 0; i < 100 && emailOutboxRepository.countByStatus(status) < count; i++) {
+            Thread.sleep(50);
+        }
+        assertThat(emailOutboxRepository.countByStatus(status)).isEqualTo(count);
+    }
+}
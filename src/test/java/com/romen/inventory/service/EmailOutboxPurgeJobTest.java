@@ -0,0 +1,65 @@
+package com.romen.inventory.service;
+
+import com.romen.inventory.entity.EmailOutboxMessage;
+import com.romen.inventory.repository.EmailOutboxRepository;
+import com.romen.inventory.repository.SchedulerLockRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "app.mail.outbox.purge.chunk-size=2",
+        "app.mail.outbox.purge.pause-ms=0",
+        "app.mail.outbox.purge.initial-delay-ms=3600000",
+        "app.mail.outbox.purge.retention.sent=7d",
+        "app.mail.outbox.purge.retention.failed=30d"
+})
+class EmailOutboxPurgeJobTest {
+
+    @Autowired
+    private EmailOutboxPurgeJob emailOutboxPurgeJob;
+
+    @Autowired
+    private EmailOutboxRepository emailOutboxRepository;
+
+    @Autowired
+    private SchedulerLockRepository schedulerLockRepository;
+
+    @BeforeEach
+    void setUp() {
+        emailOutboxRepository.deleteAll();
+        schedulerLockRepository.deleteAll();
+    }
+
+    @Test
+    void deletesOnlyFinishedRowsPastTheirRetention() {
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < 5; i++) {
+            save(EmailOutboxMessage.Status.SENT, now.minusDays(8));
+        }
+        EmailOutboxMessage recentSent = save(EmailOutboxMessage.Status.SENT, now.minusDays(6));
+        EmailOutboxMessage failed = save(EmailOutboxMessage.Status.FAILED, now.minusDays(8));
+        save(EmailOutboxMessage.Status.FAILED, now.minusDays(31));
+
+        emailOutboxPurgeJob.purge();
+
+        List<Long> remaining = emailOutboxRepository.findAll().stream().map(EmailOutboxMessage::getId).toList();
+        assertThat(remaining).containsExactlyInAnyOrder(recentSent.getId(), failed.getId());
+    }
+
+    private EmailOutboxMessage save(EmailOutboxMessage.Status status, LocalDateTime lastAttemptAt) {
+        return emailOutboxRepository.save(EmailOutboxMessage.builder()
+                .recipient("purge@example.com")
+                .subject("Purge")
+                .body("")
+                .status(status)
+                .nextAttemptAt(lastAttemptAt)
+                .build());
+    }
+}
@@ -0,0 +1,63 @@
+package com.romen.inventory.service;
+
+import com.romen.inventory.repository.StoredBlobRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Files;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "app.upload-dir=target/test-uploads")
+class FileStorageServiceTest {
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    private StoredBlobRepository storedBlobRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void storesIdenticalUploadsOnceAndDeletesWithTheLastReference() throws Exception {
+        byte[] content = UUID.randomUUID().toString().getBytes();
+        String first = fileStorageService.storeFile(new MockMultipartFile("image", "a.JPG", "image/jpeg", content), "categories");
+        String second = fileStorageService.storeFile(new MockMultipartFile("image", "b.jpg", "image/jpeg", content), "categories");
+
+        assertThat(first).isEqualTo(second).startsWith("blobs/").endsWith(".jpg");
+        assertThat(storedBlobRepository.findById(first).orElseThrow().getRefCount()).isEqualTo(2);
+
+        fileStorageService.deleteFile(first);
+        assertThat(Files.exists(fileStorageService.resolve(first))).isTrue();
+
+        fileStorageService.deleteFile(second);
+        assertThat(Files.exists(fileStorageService.resolve(first))).isFalse();
+        assertThat(storedBlobRepository.existsById(first)).isFalse();
+    }
+
+    @Test
+    void releasesTheReferenceWhenTheCallerRollsBack() throws Exception {
+        byte[] content = UUID.randomUUID().toString().getBytes();
+        String kept = fileStorageService.storeFile(new MockMultipartFile("image", "a.png", "image/png", content), "categories");
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            try {
+                fileStorageService.storeFile(new MockMultipartFile("image", "b.png", "image/png", content), "categories");
+                fileStorageService.deleteFile(kept);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+            status.setRollbackOnly();
+        });
+
+        assertThat(storedBlobRepository.findById(kept).orElseThrow().getRefCount()).isEqualTo(1);
+        assertThat(Files.exists(fileStorageService.resolve(kept))).isTrue();
+    }
+}
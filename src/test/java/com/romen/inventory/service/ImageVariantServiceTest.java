@@ -0,0 +1,66 @@
+package com.romen.inventory.service;
+
+import com.romen.inventory.entity.Category;
+import com.romen.inventory.repository.CategoryRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "app.upload-dir=target/test-uploads")
+class ImageVariantServiceTest {
+
+    @Autowired
+    private ImageVariantService imageVariantService;
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private CategoryCatalog categoryCatalog;
+
+    @Test
+    void writesDownscaledVariantsAndRecordsThemOnTheCategory() throws Exception {
+        String imageUrl = "categories/" + UUID.randomUUID() + ".png";
+        Path original = fileStorageService.resolve(imageUrl);
+        Files.createDirectories(original.getParent());
+        ImageIO.write(new BufferedImage(2400, 1200, BufferedImage.TYPE_INT_RGB), "png", original.toFile());
+
+        Category category = categoryRepository.save(Category.builder()
+                .name("Variants " + UUID.randomUUID()).imageUrl(imageUrl)
+                .expiryDays(3).displayOrder(0).isActive(true).build());
+        category.setPath(Category.childPath(null, category.getId()));
+        category.setDepth(0);
+        categoryRepository.save(category);
+        categoryCatalog.reload();
+
+        imageVariantService.generateAfterCommit(category.getId(), imageUrl);
+
+        Category updated = category;
+        for (int i = 0; i < 100 && updated.getThumbnailUrl() == null; i++) {
+            Thread.sleep(50);
+            updated = categoryRepository.findById(category.getId()).orElseThrow();
+        }
+        assertThat(updated.getThumbnailUrl()).startsWith("blobs/").endsWith(".jpg");
+        assertThat(updated.getMediumUrl()).startsWith("blobs/").endsWith(".jpg");
+
+        BufferedImage medium = ImageIO.read(fileStorageService.resolve(updated.getMediumUrl()).toFile());
+        BufferedImage thumbnail = ImageIO.read(fileStorageService.resolve(updated.getThumbnailUrl()).toFile());
+        assertThat(medium.getWidth()).isEqualTo(800);
+        assertThat(medium.getHeight()).isEqualTo(400);
+        assertThat(thumbnail.getWidth()).isEqualTo(200);
+        assertThat(thumbnail.getHeight()).isEqualTo(100);
+        assertThat(categoryCatalog.snapshot().get(category.getId()).getThumbnailUrl())
+                .isEqualTo(updated.getThumbnailUrl());
+    }
+}
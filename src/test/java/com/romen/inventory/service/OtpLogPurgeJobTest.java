@@ -0,0 +1,83 @@
+package com.romen.inventory.service;
+
+import com.romen.inventory.entity.OtpLog;
+import com.romen.inventory.entity.SchedulerLock;
+import com.romen.inventory.repository.OtpLogRepository;
+import com.romen.inventory.repository.SchedulerLockRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "app.otp.purge.chunk-size=2",
+        "app.otp.purge.pause-ms=0",
+        "app.otp.purge.initial-delay-ms=3600000",
+        "app.otp.purge.retention.default=30d",
+        "app.otp.purge.retention.login=7d"
+})
+class OtpLogPurgeJobTest {
+
+    @Autowired
+    private OtpLogPurgeJob otpLogPurgeJob;
+
+    @Autowired
+    private OtpLogRepository otpLogRepository;
+
+    @Autowired
+    private SchedulerLockRepository schedulerLockRepository;
+
+    @BeforeEach
+    void setUp() {
+        otpLogRepository.deleteAll();
+        schedulerLockRepository.deleteAll();
+    }
+
+    @Test
+    void deletesOnlyRowsPastTheirTypesRetention() {
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < 5; i++) {
+            save(OtpLog.OtpType.LOGIN, now.minusDays(8));
+        }
+        OtpLog recentLogin = save(OtpLog.OtpType.LOGIN, now.minusDays(6));
+        OtpLog register = save(OtpLog.OtpType.REGISTER, now.minusDays(8));
+        save(OtpLog.OtpType.REGISTER, now.minusDays(31));
+
+        otpLogPurgeJob.purge();
+
+        List<Long> remaining = otpLogRepository.findAll().stream().map(OtpLog::getId).toList();
+        assertThat(remaining).containsExactlyInAnyOrder(recentLogin.getId(), register.getId());
+        assertThat(schedulerLockRepository.findById("otp-log-purge").orElseThrow().getLockedUntil())
+                .isBeforeOrEqualTo(LocalDateTime.now());
+    }
+
+    @Test
+    void skipsTheRunWhileAnotherNodeHoldsTheLock() {
+        schedulerLockRepository.save(SchedulerLock.builder()
+                .name("otp-log-purge")
+                .lockedUntil(LocalDateTime.now().plusMinutes(10))
+                .lockedBy("other-node")
+                .build());
+        save(OtpLog.OtpType.LOGIN, LocalDateTime.now().minusDays(60));
+
+        otpLogPurgeJob.purge();
+
+        assertThat(otpLogRepository.count()).isEqualTo(1);
+    }
+
+    private OtpLog save(OtpLog.OtpType otpType, LocalDateTime expiresAt) {
+        return otpLogRepository.save(OtpLog.builder()
+                .email("purge@example.com")
+                .otp("0".repeat(64))
+                .otpType(otpType)
+                .isUsed(false)
+                .attempts(0)
+                .expiresAt(expiresAt)
+                .build());
+    }
+}
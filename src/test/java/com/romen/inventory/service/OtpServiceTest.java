@@ -0,0 +1,55 @@
+package com.romen.inventory.service;
+
+import com.romen.inventory.entity.OtpLog;
+import com.romen.inventory.repository.OtpLogRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "app.otp.max-attempts=3")
+class OtpServiceTest {
+
+    @Autowired
+    private OtpService otpService;
+
+    @Autowired
+    private OtpLogRepository otpLogRepository;
+
+    @Test
+    void acceptsEachCodeOnceForItsOwnIdentifierAndType() {
+        String otp = otpService.createOtp(null, "9000000100", OtpLog.OtpType.LOGIN);
+
+        assertThat(otp).hasSize(6).containsOnlyDigits();
+        assertThat(otpService.validateOtp("9000000101", otp, OtpLog.OtpType.LOGIN)).isFalse();
+        assertThat(otpService.validateOtp("9000000100", otp, OtpLog.OtpType.RESET_PASSWORD)).isFalse();
+        assertThat(otpService.validateOtp("9000000100", otp, OtpLog.OtpType.LOGIN)).isTrue();
+        assertThat(otpService.validateOtp("9000000100", otp, OtpLog.OtpType.LOGIN)).isFalse();
+    }
+
+    @Test
+    void discardsTheCodeAfterTooManyWrongGuesses() {
+        String otp = otpService.createOtp(null, "9000000200", OtpLog.OtpType.LOGIN);
+        String wrong = otp.equals("000000") ? "111111" : "000000";
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(otpService.validateOtp("9000000200", wrong, OtpLog.OtpType.LOGIN)).isFalse();
+        }
+        assertThat(otpService.validateOtp("9000000200", otp, OtpLog.OtpType.LOGIN)).isFalse();
+    }
+
+    @Test
+    void writesHashedAuditRowsBehind() {
+        String otp = otpService.createOtp(null, "9000000300", OtpLog.OtpType.VERIFY_PHONE);
+        otpService.validateOtp("9000000300", otp, OtpLog.OtpType.VERIFY_PHONE);
+        otpService.flushLogs();
+
+        OtpLog row = otpLogRepository.findAll().stream()
+                .filter(log -> "9000000300".equals(log.getPhone()))
+                .findFirst().orElseThrow();
+        assertThat(row.getOtp()).hasSize(64).isNotEqualTo(otp);
+        assertThat(row.getIsUsed()).isTrue();
+        assertThat(row.getAttempts()).isEqualTo(1);
+    }
+}
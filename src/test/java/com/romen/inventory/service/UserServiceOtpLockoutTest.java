@@ -0,0 +1,68 @@
+package com.romen.inventory.service;
+
+import com.romen.inventory.entity.OtpLog;
+import com.romen.inventory.entity.User;
+import com.romen.inventory.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {
+        "app.otp.max-attempts=10",
+        "app.otp.lockout.max-failures=3",
+        "app.otp.lockout.duration=15m"
+})
+class UserServiceOtpLockoutTest {
+
+    private static final String EMAIL = "lockout@example.com";
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private OtpService otpService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void lockoutRevokesTokensAndExpiresOnItsOwn() {
+        User user = userRepository.save(User.builder()
+                .email(EMAIL)
+                .phone("9000000400")
+                .password("x")
+                .fullName("Locked Out")
+                .role(User.Role.EMPLOYEE)
+                .isActive(true)
+                .isEmailVerified(false)
+                .isPhoneVerified(false)
+                .build());
+        String otp = otpService.createOtp(EMAIL, null, OtpLog.OtpType.VERIFY_EMAIL);
+        String wrong = otp.equals("000000") ? "111111" : "000000";
+
+        for (int i = 0; i < 3; i++) {
+            assertThatThrownBy(() -> userService.verifyEmail(EMAIL, wrong))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+
+        User locked = userRepository.findById(user.getId()).orElseThrow();
+        assertThat(locked.isAccountNonLocked()).isFalse();
+        assertThat(locked.getOtpAttempts()).isZero();
+        assertThat(locked.currentSecurityVersion()).isEqualTo(user.currentSecurityVersion() + 1);
+        // Even the right code is refused while the lock lasts
+        assertThatThrownBy(() -> userService.verifyEmail(EMAIL, otp))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("try again later");
+
+        locked.setOtpLockedUntil(LocalDateTime.now().minusSeconds(1));
+        userRepository.save(locked);
+
+        assertThat(userService.verifyEmail(EMAIL, otp).getIsEmailVerified()).isTrue();
+        assertThat(userRepository.findById(user.getId()).orElseThrow().isAccountNonLocked()).isTrue();
+    }
+}